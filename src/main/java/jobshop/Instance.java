@@ -3,13 +3,22 @@ package jobshop;
 import jobshop.encodings.Task;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.Scanner;
-import java.util.stream.Collectors;
-
-/** Represents an instance of a JobShop problem. */
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/** Represents an instance of a JobShop problem.
+ *
+ * All data is stored in flat, row-major arrays: the task (job, task) is stored at index
+ * <code>job * numTasks + task</code>. This index is also the global identifier of the operation
+ * (see {@link #operation(int, int)}) and can be used by solvers to index their own primitive arrays.
+ */
 public final class Instance {
 
     /** Name of the instance. Same as the filename from which the instance is loaded. */
@@ -24,15 +33,22 @@ public final class Instance {
     /** Number of machines, assumed to be same as number of tasks. */
     public final int numMachines;
 
-    /** Matrix containing the duration of all tasks. */
-    final int[][] durations;
+    /** Total number of operations (tasks of all jobs) in the instance. */
+    public final int numOperations;
+
+    /** Duration of all tasks, indexed by operation id. */
+    final int[] durations;
+
+    /** Machine on which each task must be scheduled, indexed by operation id. */
+    final int[] machines;
 
-    /** Matrix containing the machine on which each task must be scheduled. */
-    final int[][] machines;
+    /** For each job and machine, the task of the job that uses the machine.
+     * Indexed by <code>job * numMachines + machine</code>, filled in by {@link #index()}. */
+    final int[] taskOnMachine;
 
     /** Duration of the given task. */
     public int duration(int job, int task) {
-        return durations[job][task];
+        return durations[job * numTasks + task];
     }
 
     /** Duration of the given task. */
@@ -42,7 +58,7 @@ public final class Instance {
 
     /** Machine on which the given task must be scheduled. */
     public int machine(int job, int task) {
-        return machines[job][task];
+        return machines[job * numTasks + task];
     }
 
     /** Machine on which the given task must be scheduled. */
@@ -52,49 +68,185 @@ public final class Instance {
 
     /** Among the tasks of the given job, returns the task number of the one that uses the given machine. */
     public int task_with_machine(int job, int wanted_machine) {
-        for(int task = 0 ; task < numTasks ; task++) {
-            if(machine(job, task) == wanted_machine)
-                return task;
-        }
-        throw new RuntimeException("No task targeting machine "+wanted_machine+" on job "+job);
+        int task = taskOnMachine[job * numMachines + wanted_machine];
+        if(task < 0)
+            throw new RuntimeException("No task targeting machine "+wanted_machine+" on job "+job);
+        return task;
+    }
+
+    /** Global identifier of the given task, in <code>[0, numOperations)</code>. */
+    public int operation(int job, int task) {
+        return job * numTasks + task;
+    }
+
+    /** Job of the operation with the given identifier. */
+    public int operationJob(int op) {
+        return op / numTasks;
+    }
+
+    /** Task number (inside its job) of the operation with the given identifier. */
+    public int operationTask(int op) {
+        return op % numTasks;
+    }
+
+    /** Duration of the operation with the given identifier. */
+    public int operationDuration(int op) {
+        return durations[op];
+    }
+
+    /** Machine of the operation with the given identifier. */
+    public int operationMachine(int op) {
+        return machines[op];
+    }
+
+    /** Identifier of the operation of the given job that uses the given machine. */
+    public int operationOnMachine(int job, int machine) {
+        return job * numTasks + task_with_machine(job, machine);
     }
 
     /**
      * Creates a new instance, with uninitialized durations and machines.
      * This should no be called directly. Instead, Instance objects should be created with the
-     * <code>Instance.fromFile()</code> static method.
+     * <code>Instance.fromFile()</code> or <code>Instance.load()</code> static methods.
      */
     Instance(String name, int numJobs, int numTasks) {
         this.name = name;
         this.numJobs = numJobs;
         this.numTasks = numTasks;
         this.numMachines = numTasks;
+        this.numOperations = numJobs * numTasks;
 
-        durations = new int[numJobs][numTasks];
-        machines = new int[numJobs][numTasks];
+        durations = new int[numOperations];
+        machines = new int[numOperations];
+        taskOnMachine = new int[numJobs * numMachines];
+    }
+
+    /** Builds the machine to task lookup table. Must be called once the machines have been filled in. */
+    void index() {
+        Arrays.fill(taskOnMachine, -1);
+        for(int job = 0 ; job < numJobs ; job++) {
+            for(int task = 0 ; task < numTasks ; task++) {
+                taskOnMachine[job * numMachines + machines[job * numTasks + task]] = task;
+            }
+        }
     }
 
-    /** Parses a instance from a file. */
+    /** Parses a instance from a file in the textual format.
+     *
+     * The first non-comment line contains the number of jobs and tasks, then each line contains
+     * the sequence of (machine, duration) pairs of a job. Lines starting with '#' are ignored, as is anything
+     * following the expected values on a line.
+     */
     public static Instance fromFile(Path path) throws IOException {
         String name = path.getFileName().toString();
-        Iterator<String> lines = Files.readAllLines(path).stream()
-                .filter(l -> !l.startsWith("#"))
-                .collect(Collectors.toList())
-                .iterator();
-
-        Scanner header = new Scanner(lines.next());
-        int numJobs = header.nextInt();
-        int numTasks = header.nextInt();
-        Instance pb = new Instance(name, numJobs, numTasks);
-
-        for(int job = 0 ; job<numJobs ; job++) {
-            Scanner line = new Scanner(lines.next());
-            for(int task = 0 ; task < numTasks ; task++) {
-                pb.machines[job][task] = line.nextInt();
-                pb.durations[job][task] = line.nextInt();
+        try(InstanceReader reader = new InstanceReader(path)) {
+            int numJobs = reader.nextInt();
+            int numTasks = reader.nextInt();
+            reader.skipLine();
+            Instance pb = new Instance(name, numJobs, numTasks);
+
+            for(int op = 0 ; op < pb.numOperations ; op++) {
+                pb.machines[op] = reader.nextInt();
+                pb.durations[op] = reader.nextInt();
+                if(pb.operationTask(op) == numTasks - 1)
+                    reader.skipLine();
             }
+            pb.index();
+
+            return pb;
         }
+    }
+
+    /** Magic number at the start of all binary instance files ("JSPB" in ASCII). */
+    static final int BINARY_MAGIC = 0x4A535042;
+
+    /** Version of the binary format, to be increased on any change of the layout. */
+    static final int BINARY_VERSION = 1;
+
+    /** Loads an instance from a file, that can be either in the textual or in the binary format.
+     * The format is detected from the first bytes of the file.
+     */
+    public static Instance load(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while(head.hasRemaining() && channel.read(head) > 0);
+            if(!head.hasRemaining() && head.getInt(0) == BINARY_MAGIC)
+                return fromBinaryFile(path);
+        }
+        return fromFile(path);
+    }
+
+    /** Loads an instance from a file in the binary format produced by {@link #toBinaryFile(Path)}.
+     *
+     * The file is memory-mapped and the durations and machines are bulk-copied into the instance.
+     */
+    public static Instance fromBinaryFile(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(data.remaining() < 8 || data.getInt() != BINARY_MAGIC)
+                throw new IOException("Not a binary instance file: " + path);
+            int version = data.getInt();
+            if(version != BINARY_VERSION)
+                throw new IOException("Unsupported binary instance version " + version + " in " + path);
+
+            byte[] nameBytes = new byte[data.getInt()];
+            data.get(nameBytes);
+            int numJobs = data.getInt();
+            int numTasks = data.getInt();
+            Instance pb = new Instance(new String(nameBytes, StandardCharsets.UTF_8), numJobs, numTasks);
+
+            IntBuffer ints = data.asIntBuffer();
+            ints.get(pb.machines);
+            ints.get(pb.durations);
+            pb.index();
+
+            return pb;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated binary instance file: " + path, e);
+        }
+    }
+
+    /** Writes this instance to the given file in the binary format.
+     *
+     * Layout (big endian): magic, version, name length, name (UTF-8), numJobs, numTasks,
+     * machines of all operations then durations of all operations (both indexed by operation id).
+     */
+    public void toBinaryFile(Path path) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer data = ByteBuffer.allocate(4 * (5 + 2 * numOperations) + nameBytes.length);
+        data.putInt(BINARY_MAGIC);
+        data.putInt(BINARY_VERSION);
+        data.putInt(nameBytes.length);
+        data.put(nameBytes);
+        data.putInt(numJobs);
+        data.putInt(numTasks);
+        IntBuffer ints = data.asIntBuffer();
+        ints.put(machines);
+        ints.put(durations);
+        data.clear();
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Instance that = (Instance) o;
+        return numJobs == that.numJobs && numTasks == that.numTasks && name.equals(that.name)
+                && Arrays.equals(durations, that.durations) && Arrays.equals(machines, that.machines);
+    }
 
-        return pb;
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(name, numJobs, numTasks);
+        result = 31 * result + Arrays.hashCode(durations);
+        result = 31 * result + Arrays.hashCode(machines);
+        return result;
     }
 }
@@ -0,0 +1,67 @@
+package jobshop;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts textual instances into the compact binary format (see {@link Instance#toBinaryFile(Path)}).
+ *
+ * The converted files keep the name of the original instance, so that the output directory can be directly
+ * given to the <code>--instance-dir</code> option of {@link Main}.
+ */
+public class InstanceConverter {
+
+    public static void main(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("jsp-convert").build()
+                .defaultHelp(true)
+                .description("Converts jobshop instances to the binary format.");
+        parser.addArgument("--instance-dir")
+                .setDefault("instances/")
+                .help("Directory containing the textual instances.");
+        parser.addArgument("-o", "--output")
+                .setDefault("instances-bin/")
+                .help("Directory in which the binary instances are written.");
+        parser.addArgument("--instance")
+                .nargs("+")
+                .setDefault(List.of(""))
+                .help("Instance(s) to convert (space separated if more than one). All instances starting with the " +
+                        "given string will be selected. By default, all known instances are converted.");
+
+        Namespace ns = null;
+        try {
+            ns = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
+
+        List<String> instances = new ArrayList<>();
+        for(String instancePrefix : ns.<String>getList("instance")) {
+            instances.addAll(BestKnownResults.instancesMatching(instancePrefix));
+        }
+
+        Path inputDir = Paths.get(ns.getString("instance_dir"));
+        Path outputDir = Paths.get(ns.getString("output"));
+        try {
+            Files.createDirectories(outputDir);
+            for(String instanceName : instances) {
+                Instance instance = Instance.fromFile(inputDir.resolve(instanceName));
+                instance.toBinaryFile(outputDir.resolve(instanceName));
+                System.out.printf("%-8s %-7s -> %s%n", instanceName, instance.numJobs + "x" + instance.numTasks,
+                        outputDir.resolve(instanceName));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
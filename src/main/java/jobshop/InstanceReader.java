@@ -0,0 +1,83 @@
+package jobshop;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Streaming tokenizer for the textual instance format.
+ *
+ * The file is read through a single reusable NIO buffer and integers are parsed directly from the bytes,
+ * without creating any intermediate String, line or Scanner object.
+ * A '#' starts a comment that runs until the end of the line, and the remainder of a line can be discarded
+ * with {@link #skipLine()} (to ignore any trailing data after the expected values of a line).
+ */
+final class InstanceReader implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /** Last byte returned by {@link #read()}, initially a newline since we start at the beginning of a line. */
+    private int last = '\n';
+
+    InstanceReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(BUFFER_SIZE, channel.size())));
+        this.buffer.flip(); // empty buffer, filled on first read
+    }
+
+    /** Returns the next byte of the file (between 0 and 255) or -1 if the end of the file is reached. */
+    private int read() throws IOException {
+        if(!buffer.hasRemaining()) {
+            buffer.clear();
+            int n = channel.read(buffer);
+            buffer.flip();
+            if(n <= 0)
+                return last = -1;
+        }
+        return last = buffer.get() & 0xFF;
+    }
+
+    /** Discards everything up to and including the next end of line.
+     * Does nothing if the last consumed character already terminated a line. */
+    void skipLine() throws IOException {
+        while(last != '\n' && last != -1) {
+            read();
+        }
+    }
+
+    /** Parses the next integer of the file, skipping blanks and comments. */
+    int nextInt() throws IOException {
+        int b = read();
+        while(b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '#') {
+            if(b == '#')
+                skipLine();
+            b = read();
+        }
+        if(b == -1)
+            throw new EOFException("Unexpected end of instance file");
+
+        boolean negative = b == '-';
+        if(negative)
+            b = read();
+        if(b < '0' || b > '9')
+            throw new IOException("Invalid character in instance file: '" + (char) b + "'");
+        int value = 0;
+        while(b >= '0' && b <= '9') {
+            value = value * 10 + (b - '0');
+            b = read();
+        }
+        if(b == '#')
+            skipLine(); // comment directly following the number
+        return negative ? -value : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -7,13 +7,17 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import jobshop.encodings.Schedule;
 import jobshop.solvers.*;
 import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -42,6 +46,26 @@ public class Main {
                 .required(true)
                 .help("Instance(s) to solve (space separated if more than one). All instances starting with the given " +
                         "string will be selected. (e.g. \"ft\" will select the instances ft06, ft10 and ft20.");
+        parser.addArgument("--threads")
+                .setDefault(1)
+                .type(Integer.class)
+                .help("Number of runs executed in parallel. Each run (instance, solver, seed) has its own solver object, " +
+                        "run control and deadline. Default is 1 (runs one after the other).");
+        parser.addArgument("--seeds")
+                .setDefault(1)
+                .type(Integer.class)
+                .help("Number of runs of each solver on each instance, with the seeds 0, 1, ... The table reports the " +
+                        "best makespan and the average runtime of these runs.");
+        parser.addArgument("--one-core-per-run")
+                .action(Arguments.storeTrue())
+                .help("Never execute more threads in parallel than there are processors, so that each run has its " +
+                        "cores for itself and its timing stays comparable with sequential runs. The number of runs " +
+                        "executed in parallel is lowered according to the number of threads of the solvers " +
+                        "(e.g. grasp_*, genetic*, bnb, taboo_parallel* and portfolio use several threads).");
+        parser.addArgument("--instance-dir")
+                .setDefault("instances/")
+                .help("Directory from which instances are loaded. Instances can be either in the textual format " +
+                        "or in the binary format produced by jobshop.InstanceConverter.");
 
         // parse command line arguments
         Namespace ns = null;
@@ -66,7 +90,23 @@ public class Main {
         // Get the list of solvers that we should benchmark.
         // We also check that we have a solver available for the given name and print an error message otherwise.
         List<String> solversToTest = ns.getList("solver");
-        List<Solver> solvers = solversToTest.stream().map(Solver::getSolver).collect(Collectors.toList());
+        solversToTest.forEach(Solver::getSolver);
+        int numSeeds = ns.getInt("seeds");
+        int numThreads = ns.getInt("threads");
+        if(numSeeds < 1 || numThreads < 1) {
+            System.err.println("ERROR: the number of seeds and threads must be positive.");
+            System.exit(1);
+        }
+        if(ns.getBoolean("one_core_per_run")) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            int threadsPerRun = 1;
+            for(String solverName : solversToTest)
+                threadsPerRun = Math.max(threadsPerRun, Solver.getSolver(solverName).numThreads());
+            if(threadsPerRun > processors)
+                System.err.println("WARNING: some solvers use " + threadsPerRun + " threads, more than the " +
+                        processors + " processors: their runs cannot have a core per thread.");
+            numThreads = Math.min(numThreads, Math.max(1, processors / threadsPerRun));
+        }
 
         // retrieve all instances on which we should run the solvers.
         List<String> instances = new ArrayList<>();
@@ -85,10 +125,37 @@ public class Main {
         float[] avg_runtimes = new float[solversToTest.size()];
         // average distance to best known result for each solver
         float[] avg_distances = new float[solversToTest.size()];
+        // average proven gap (distance to the lower bound) for each solver
+        float[] avg_gaps = new float[solversToTest.size()];
+        // number of instances solved to proven optimality by each solver
+        int[] num_optimal = new int[solversToTest.size()];
+        // average number of solutions built per second by each GRASP solver (negative for the other solvers)
+        float[] avg_constructions = new float[solversToTest.size()];
 
 
 
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
         try {
+            // load all instances and submit all runs, in the order of the table: runs are started in this order
+            // and their results are read in this order, whatever the order in which they complete
+            List<Instance> loaded = new ArrayList<>();
+            // lower bound on the optimal makespan of each instance, solvers stop as soon as they reach it
+            List<LowerBound> bounds = new ArrayList<>();
+            List<Future<RunResult>> runs = new ArrayList<>();
+            for(String instanceName : instances) {
+                Path path = Paths.get(ns.getString("instance_dir"), instanceName);
+                Instance instance = Instance.load(path);
+                LowerBound bound = LowerBound.of(instance);
+                loaded.add(instance);
+                bounds.add(bound);
+                for(String solverName : solversToTest) {
+                    for(int seed = 0 ; seed < numSeeds ; seed++) {
+                        final long runSeed = seed;
+                        runs.add(pool.submit(() -> run(solverName, runSeed, instance, bound, solveTimeMs)));
+                    }
+                }
+            }
+
             BufferedWriter f_writer
                     = new BufferedWriter(new FileWriter(
                     "./results.csv"));
@@ -101,59 +168,61 @@ public class Main {
             }
 
             output.println();
-            output.print("instance size  best      ");
-            f_writer.write("instance,size,best,");
+            output.print("instance size  best   lb ");
+            f_writer.write("instance,size,best,lb,");
             for(String s : solversToTest) {
-                output.print("runtime makespan ecart        ");
+                output.print("runtime makespan ecart   gap  ");
             }
-            f_writer.write("runtime,makespan,ecart");
+            f_writer.write("runtime,makespan,ecart,gap");
             if (solversToTest.size()==1)f_writer.write(","+solversToTest.get(0));
             output.println();
             f_writer.write("\n");
 
-            // for all instances, load it from f
-            for(String instanceName : instances) {
+            // for all instances, gather the results of their runs
+            Iterator<Future<RunResult>> results = runs.iterator();
+            for(int instanceId = 0 ; instanceId < instances.size() ; instanceId++) {
+                String instanceName = instances.get(instanceId);
                 // get the best known result for this instance
                 int bestKnown = BestKnownResults.of(instanceName);
 
-                // load instance from file.
-                Path path = Paths.get("instances/", instanceName);
-                Instance instance = Instance.fromFile(path);
+                Instance instance = loaded.get(instanceId);
+                int lowerBound = bounds.get(instanceId).value();
 
                 // print some general statistics on the instance
-                output.printf("%-8s %-5s %4d      ",instanceName, instance.numJobs +"x"+instance.numTasks, bestKnown);
-                f_writer.write(instanceName+","+instance.numJobs+"x"+instance.numTasks+","+bestKnown+",");
-
-                // run all selected solvers on the instance and print the results
-                for(int solverId = 0 ; solverId < solvers.size() ; solverId++) {
-                    // Select the next solver to run. Given the solver name passed on the command line,
-                    // we lookup the `Main.solvers` hash map to get the solver object with the given name.
-                    Solver solver = solvers.get(solverId);
-
-                    // start chronometer and compute deadline for the solver to provide a result.
-                    long start = System.currentTimeMillis();
-                    long deadline = System.currentTimeMillis() + solveTimeMs;
-                    // run the solver on the current instance
-                    Optional<Schedule> result = solver.solve(instance, deadline);
-                    // measure elapsed time (in milliseconds)
-                    long runtime = System.currentTimeMillis() - start;
-
-                    // check that the solver returned a valid solution
-                    if(result.isEmpty() || !result.get().isValid()) {
-                        System.err.println("ERROR: solver did not provide a valid schedule");
-                        System.exit(1); // bug in implementation, bail out
+                output.printf("%-8s %-5s %4d %4d ",instanceName, instance.numJobs +"x"+instance.numTasks, bestKnown, lowerBound);
+                f_writer.write(instanceName+","+instance.numJobs+"x"+instance.numTasks+","+bestKnown+","+lowerBound+",");
+
+                // gather the runs of all selected solvers on the instance and print the results
+                for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
+                    long runtime = 0;
+                    int makespan = Integer.MAX_VALUE;
+                    int proven = lowerBound;
+                    for(int seed = 0 ; seed < numSeeds ; seed++) {
+                        RunResult run = results.next().get();
+                        // check that the solver returned a valid solution
+                        if(run.result.isEmpty() || !run.result.get().isValid()) {
+                            System.err.println("ERROR: solver did not provide a valid schedule");
+                            System.exit(1); // bug in implementation, bail out
+                        }
+                        runtime += run.runtime;
+                        makespan = Math.min(makespan, run.result.get().makespan());
+                        // an exact solver may have proven a better bound than the static one
+                        proven = Math.max(proven, run.provenBound);
+                        avg_constructions[solverId] += run.constructionsPerSecond / (numSeeds * instances.size());
                     }
-                    // we have a valid schedule
-                    Schedule schedule = result.get();
+                    runtime /= numSeeds;
 
-                    // compute some statistics on the solution and print them.
-                    int makespan = schedule.makespan();
+                    // compute some statistics on the solutions and print them.
                     float dist = 100f * (makespan - bestKnown) / (float) bestKnown;
+                    float gap = 100f * (makespan - proven) / (float) makespan;
                     avg_runtimes[solverId] += (float) runtime / (float) instances.size();
                     avg_distances[solverId] += dist / (float) instances.size();
+                    avg_gaps[solverId] += gap / (float) instances.size();
+                    if(makespan <= proven)
+                        num_optimal[solverId]++;
 
-                    output.printf("%7d %8s %5.1f        ", runtime, makespan, dist);
-                    f_writer.write(runtime+","+makespan+","+dist+"\n");
+                    output.printf("%7d %8s %5.1f %5.1f  ", runtime, makespan, dist, gap);
+                    f_writer.write(runtime+","+makespan+","+dist+","+gap+"\n");
                     output.flush();
                 }
                 output.println();
@@ -161,10 +230,27 @@ public class Main {
 
 
             // we have finished all benchmarks, compute the average solve time and distance of each solver.
-            output.printf("%-8s %-5s %4s      ", "AVG", "-", "-");
+            output.printf("%-8s %-5s %4s %4s ", "AVG", "-", "-", "-");
             for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
-                output.printf("%7.1f %8s %5.1f        ", avg_runtimes[solverId], "-", avg_distances[solverId]);
+                output.printf("%7.1f %8s %5.1f %5.1f  ", avg_runtimes[solverId], "-", avg_distances[solverId], avg_gaps[solverId]);
             }
+            output.println();
+            output.printf("%-8s %-5s %4s %4s ", "OPTIMAL", "-", "-", "-");
+            for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
+                output.printf("%-30s", num_optimal[solverId] + "/" + instances.size());
+            }
+            boolean grasp = false;
+            for(float constructions : avg_constructions)
+                grasp |= constructions >= 0;
+            if(grasp) {
+                output.println();
+                output.printf("%-8s %-5s %4s %4s ", "CONSTR/S", "-", "-", "-");
+                for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
+                    String rate = avg_constructions[solverId] < 0 ? "-" : String.format("%.0f", avg_constructions[solverId]);
+                    output.printf("%-30s", rate);
+                }
+            }
+            output.println();
             f_writer.flush();
             f_writer.close();
 
@@ -174,6 +260,44 @@ public class Main {
             // there was uncaught exception, print the stack trace and exit with error.
             e.printStackTrace();
             System.exit(1);
+        } finally {
+            pool.shutdownNow();
         }
     }
+
+    /** Outcome of one run of a solver on an instance. */
+    private static final class RunResult {
+        final long runtime;
+        final Optional<Schedule> result;
+        /** Lower bound proven by the solver itself (0 if none). */
+        final int provenBound;
+        /** Solutions built per second by a GRASP solver, -1 for the other solvers. */
+        final double constructionsPerSecond;
+
+        RunResult(long runtime, Optional<Schedule> result, int provenBound, double constructionsPerSecond) {
+            this.runtime = runtime;
+            this.result = result;
+            this.provenBound = provenBound;
+            this.constructionsPerSecond = constructionsPerSecond;
+        }
+    }
+
+    /** Runs a new solver with the given name and seed on the instance. The deadline is computed when the run starts,
+     * so a run waiting for a free worker does not lose any of its time. */
+    private static RunResult run(String solverName, long seed, Instance instance, LowerBound lowerBound, long solveTimeMs) {
+        Solver solver = Solver.getSolver(solverName, seed);
+        // start chronometer and compute deadline for the solver to provide a result.
+        long start = System.currentTimeMillis();
+        long deadline = start + solveTimeMs;
+        Optional<Schedule> result = solver.solve(instance, deadline, lowerBound);
+        // measure elapsed time (in milliseconds)
+        long runtime = System.currentTimeMillis() - start;
+        int provenBound = 0;
+        if(solver instanceof BranchAndBoundSolver && ((BranchAndBoundSolver) solver).lastCertificate() != null)
+            provenBound = ((BranchAndBoundSolver) solver).lastCertificate().lowerBound;
+        double constructionsPerSecond = -1;
+        if(solver instanceof GreedyRandomSolver)
+            constructionsPerSecond = ((GreedyRandomSolver) solver).constructionsPerSecond();
+        return new RunResult(runtime, result, provenBound, constructionsPerSecond);
+    }
 }
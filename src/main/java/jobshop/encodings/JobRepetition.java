@@ -0,0 +1,215 @@
+package jobshop.encodings;
+
+import jobshop.Instance;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/** Operation-based encoding of a solution: a sequence in which each job appears numTasks times.
+ *
+ * The k-th occurrence of a job stands for its k-th task, so any permutation of the sequence describes a feasible
+ * solution: tasks are scheduled one after the other in the order of the sequence, each one at the earliest time
+ * allowed by its job and machine. Two decodings are available:
+ * <ul>
+ *     <li>semi-active: each task starts after the last task scheduled on its machine,</li>
+ *     <li>active: each task is inserted in the first idle period of its machine where it fits.</li>
+ * </ul>
+ * The decodings are implemented by a reusable {@link Decoder} working on any slice of an int array, so that
+ * search algorithms can store their sequences in a flat pool and decode them without allocation.
+ */
+public final class JobRepetition extends Encoding {
+
+    /** Sequence of jobs, of length numOperations. */
+    final int[] jobs;
+
+    /** Creates the sequence in which all first tasks appear first, then all second tasks, ... */
+    public JobRepetition(Instance instance) {
+        super(instance);
+        this.jobs = new int[instance.numOperations];
+        fillDefault(instance, jobs, 0);
+    }
+
+    /** Creates an encoding from the sequence of numOperations jobs starting at the given offset of the array. */
+    public JobRepetition(Instance instance, int[] sequence, int offset) {
+        super(instance);
+        this.jobs = Arrays.copyOfRange(sequence, offset, offset + instance.numOperations);
+        if (!isValidSequence(instance, jobs, 0))
+            throw new RuntimeException("Not a job repetition sequence: " + Arrays.toString(jobs));
+    }
+
+    /** Creates the sequence of the tasks of a schedule sorted by start time, whose semi-active decoding is the
+     * schedule itself if it is semi-active. */
+    public JobRepetition(Schedule schedule) {
+        super(schedule.instance);
+        Instance pb = schedule.instance;
+        // sort keys: start time in the high bits, then tasks of positive duration after the ones of zero duration
+        // that start at the same time on their machine, then operation, so that tasks of a job stay in order
+        long[] keys = new long[pb.numOperations];
+        for (int job = 0; job < pb.numJobs; job++) {
+            for (int task = 0; task < pb.numTasks; task++) {
+                long positive = pb.duration(job, task) > 0 ? 1L << 31 : 0;
+                keys[pb.operation(job, task)] = ((long) schedule.startTime(job, task) << 32) | positive | pb.operation(job, task);
+            }
+        }
+        Arrays.sort(keys);
+        this.jobs = new int[pb.numOperations];
+        for (int i = 0; i < keys.length; i++) {
+            jobs[i] = pb.operationJob((int) (keys[i] & Integer.MAX_VALUE));
+        }
+    }
+
+    /** Writes at the given offset the sequence in which all first tasks appear first, then all second tasks, ... */
+    public static void fillDefault(Instance instance, int[] sequence, int offset) {
+        for (int i = 0; i < instance.numOperations; i++) {
+            sequence[offset + i] = i % instance.numJobs;
+        }
+    }
+
+    /** True if the numOperations values at the given offset contain each job exactly numTasks times. */
+    public static boolean isValidSequence(Instance instance, int[] sequence, int offset) {
+        int[] count = new int[instance.numJobs];
+        for (int i = 0; i < instance.numOperations; i++) {
+            int job = sequence[offset + i];
+            if (job < 0 || job >= instance.numJobs || ++count[job] > instance.numTasks)
+                return false;
+        }
+        return true;
+    }
+
+    /** Job at the given position of the sequence. */
+    public int jobAt(int position) {
+        return jobs[position];
+    }
+
+    /** Semi-active schedule of the sequence. */
+    @Override
+    public Optional<Schedule> toSchedule() {
+        Decoder decoder = new Decoder(instance);
+        decoder.decode(jobs, 0, false);
+        return Optional.of(decoder.toSchedule());
+    }
+
+    /** Active schedule of the sequence. */
+    public Schedule toActiveSchedule() {
+        Decoder decoder = new Decoder(instance);
+        decoder.decode(jobs, 0, true);
+        return decoder.toSchedule();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        JobRepetition that = (JobRepetition) o;
+        return instance.equals(that.instance) && Arrays.equals(jobs, that.jobs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(jobs);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(jobs);
+    }
+
+    /** Reusable decoder of job repetition sequences. A decoder is not thread safe. */
+    public static final class Decoder {
+        public final Instance instance;
+
+        /** Index of the next task of each job. */
+        private final int[] nextTask;
+        /** End time of the last scheduled task of each job. */
+        private final int[] jobReady;
+        /** Start times, indexed by operation. */
+        private final int[] startTimes;
+        /** Operations scheduled on each machine, sorted by start time: machineOps[m * numJobs + i]. */
+        private final int[] machineOps;
+        private final int[] machineCount;
+        private int makespan;
+
+        public Decoder(Instance instance) {
+            this.instance = instance;
+            this.nextTask = new int[instance.numJobs];
+            this.jobReady = new int[instance.numJobs];
+            this.startTimes = new int[instance.numOperations];
+            this.machineOps = new int[instance.numMachines * instance.numJobs];
+            this.machineCount = new int[instance.numMachines];
+        }
+
+        /** Decodes the sequence of numOperations jobs starting at the given offset, that must be valid.
+         *
+         * @param active If true, tasks are inserted in the first idle period of their machine where they fit,
+         *               otherwise they are added after the last task of their machine.
+         * @return The makespan of the schedule.
+         */
+        public int decode(int[] sequence, int offset, boolean active) {
+            final Instance pb = instance;
+            Arrays.fill(nextTask, 0);
+            Arrays.fill(jobReady, 0);
+            Arrays.fill(machineCount, 0);
+            makespan = 0;
+            for (int i = 0; i < pb.numOperations; i++) {
+                int job = sequence[offset + i];
+                int task = nextTask[job]++;
+                int op = pb.operation(job, task);
+                int machine = pb.operationMachine(op);
+                int duration = pb.operationDuration(op);
+                int base = machine * pb.numJobs;
+                int count = machineCount[machine];
+
+                // position of the task on its machine and start time
+                int position = count;
+                int start = count == 0 ? jobReady[job] : Math.max(jobReady[job], end(machineOps[base + count - 1]));
+                if (active) {
+                    int idleStart = 0;
+                    for (int k = 0; k < count; k++) {
+                        int other = machineOps[base + k];
+                        int candidate = Math.max(idleStart, jobReady[job]);
+                        if (candidate + duration <= startTimes[other] && candidate < start) {
+                            position = k;
+                            start = candidate;
+                            break;
+                        }
+                        idleStart = Math.max(idleStart, end(other));
+                    }
+                }
+                System.arraycopy(machineOps, base + position, machineOps, base + position + 1, count - position);
+                machineOps[base + position] = op;
+                machineCount[machine] = count + 1;
+
+                startTimes[op] = start;
+                jobReady[job] = start + duration;
+                makespan = Math.max(makespan, start + duration);
+            }
+            return makespan;
+        }
+
+        private int end(int op) {
+            return startTimes[op] + instance.operationDuration(op);
+        }
+
+        /** Makespan of the last decoded sequence. */
+        public int makespan() {
+            return makespan;
+        }
+
+        /** Schedule of the last decoded sequence. */
+        public Schedule toSchedule() {
+            return new Schedule(instance, startTimes);
+        }
+
+        /** Resource order of the last decoded sequence, whose schedule is the decoded one. */
+        public ResourceOrder toResourceOrder() {
+            ResourceOrder order = new ResourceOrder(instance);
+            for (int m = 0; m < instance.numMachines; m++) {
+                for (int k = 0; k < instance.numJobs; k++) {
+                    int op = machineOps[m * instance.numJobs + k];
+                    order.addTaskToMachine(m, new Task(instance.operationJob(op), instance.operationTask(op)));
+                }
+            }
+            return order;
+        }
+    }
+}
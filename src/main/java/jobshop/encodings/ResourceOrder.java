@@ -3,16 +3,19 @@ package jobshop.encodings;
 import jobshop.Instance;
 
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.Optional;
-import java.util.stream.IntStream;
 
-/** Encoding of a solution by the ordering of tasks on each machine. */
+/** Encoding of a solution by the ordering of tasks on each machine.
+ *
+ * Since each job has exactly one task on each machine, the order on a machine is stored as a sequence of job
+ * numbers. The sequences of all machines are stored contiguously in a single array, so that copying a resource
+ * order is a single array copy.
+ */
 public final class ResourceOrder extends Encoding {
 
-    // for each machine m, taskByMachine[m] is an array of tasks to be
-    // executed on this machine in the same order
-    final Task[][] tasksByMachine;
+    // for each machine m, jobsByMachine[m * numJobs + i] is the job whose task
+    // on machine m is the i-th to be executed on this machine (-1 if not initialized)
+    final int[] jobsByMachine;
 
     // for each machine, indicate how many tasks have been initialized
     final int[] nextFreeSlot;
@@ -22,8 +25,9 @@ public final class ResourceOrder extends Encoding {
     {
         super(instance);
 
-        // matrix of null elements (null is the default value of objects)
-        tasksByMachine = new Task[instance.numMachines][instance.numJobs];
+        // no task on any machine
+        jobsByMachine = new int[instance.numMachines * instance.numJobs];
+        Arrays.fill(jobsByMachine, -1);
 
         // no task scheduled on any machine (0 is the default value)
         nextFreeSlot = new int[instance.numMachines];
@@ -35,31 +39,39 @@ public final class ResourceOrder extends Encoding {
         super(schedule.instance);
         Instance pb = schedule.instance;
 
-        this.tasksByMachine = new Task[pb.numMachines][];
-        this.nextFreeSlot = new int[instance.numMachines];
-
-        for(int m = 0; m<schedule.instance.numMachines ; m++) {
-            final int machine = m;
+        this.jobsByMachine = new int[pb.numMachines * pb.numJobs];
+        this.nextFreeSlot = new int[pb.numMachines];
 
+        // sort keys: start time in the high bits and job number in the low bits,
+        // so that jobs are sorted by start time, then by job number
+        long[] keys = new long[pb.numJobs];
+        for(int m = 0; m<pb.numMachines ; m++) {
             // for this machine, find all tasks that are executed on it and sort them by their start time
-            tasksByMachine[m] =
-                    IntStream.range(0, pb.numJobs) // all job numbers
-                            .mapToObj(j -> new Task(j, pb.task_with_machine(j, machine))) // all tasks on this machine (one per job)
-                            .sorted(Comparator.comparing(t -> schedule.startTime(t.job, t.task))) // sorted by start time
-                            .toArray(Task[]::new); // as new array and store in tasksByMachine
+            for(int j = 0 ; j < pb.numJobs ; j++) {
+                keys[j] = ((long) schedule.startTime(j, pb.task_with_machine(j, m)) << 32) | j;
+            }
+            Arrays.sort(keys);
+            for(int i = 0 ; i < pb.numJobs ; i++) {
+                jobsByMachine[m * pb.numJobs + i] = (int) keys[i];
+            }
 
             // indicate that all tasks have been initialized for machine m
-            nextFreeSlot[m] = instance.numJobs;
+            nextFreeSlot[m] = pb.numJobs;
         }
     }
 
+    /** Creates a copy of the given resource order. */
     public ResourceOrder(ResourceOrder original) {
         super(original.instance);
         this.nextFreeSlot = original.nextFreeSlot.clone();
-        this.tasksByMachine = new Task[original.tasksByMachine.length][];
-        for(int i=0 ; i<this.tasksByMachine.length ; i++) {
-            this.tasksByMachine[i] = original.tasksByMachine[i].clone();
-        }
+        this.jobsByMachine = original.jobsByMachine.clone();
+    }
+
+    /** Overwrites this resource order with the content of another one on the same instance. */
+    public void copyFrom(ResourceOrder other) {
+        assert other.instance == this.instance;
+        System.arraycopy(other.jobsByMachine, 0, this.jobsByMachine, 0, jobsByMachine.length);
+        System.arraycopy(other.nextFreeSlot, 0, this.nextFreeSlot, 0, nextFreeSlot.length);
     }
 
     /** Adds the given task to the queue of the given machine. */
@@ -67,7 +79,7 @@ public final class ResourceOrder extends Encoding {
         if(instance.machine(task) != machine) {
             throw new RuntimeException("Task " + task + " cannot be scheduled on machine "+machine);
         }
-        tasksByMachine[machine][nextFreeSlot[machine]] = task;
+        jobsByMachine[machine * instance.numJobs + nextFreeSlot[machine]] = task.job;
         nextFreeSlot[machine] += 1;
     }
 
@@ -78,7 +90,15 @@ public final class ResourceOrder extends Encoding {
      * @return The i-th task scheduled on a machine.
      */
     public Task getTaskOfMachine(int machine, int taskIndex) {
-        return tasksByMachine[machine][taskIndex];
+        int job = getJobOfMachine(machine, taskIndex);
+        if(job < 0)
+            return null;
+        return new Task(job, instance.task_with_machine(job, machine));
+    }
+
+    /** Returns the job of the i-th task scheduled on a particular machine (-1 if the slot is not initialized yet). */
+    public int getJobOfMachine(int machine, int taskIndex) {
+        return jobsByMachine[machine * instance.numJobs + taskIndex];
     }
 
     /** Exchange the order of two tasks that are scheduled on a given machine.
@@ -88,62 +108,37 @@ public final class ResourceOrder extends Encoding {
      * @param indexTask2 Position of the second task in the machine's queue
      */
     public void swapTasks(int machine, int indexTask1, int indexTask2) {
-        Task tmp = tasksByMachine[machine][indexTask1];
-        tasksByMachine[machine][indexTask1] = tasksByMachine[machine][indexTask2];
-        tasksByMachine[machine][indexTask2] = tmp;
+        int offset = machine * instance.numJobs;
+        int tmp = jobsByMachine[offset + indexTask1];
+        jobsByMachine[offset + indexTask1] = jobsByMachine[offset + indexTask2];
+        jobsByMachine[offset + indexTask2] = tmp;
+    }
+
+    /** Returns the identifier (see {@link Instance#operation(int, int)}) of the i-th task scheduled on a machine. */
+    public int operationAt(int machine, int taskIndex) {
+        return instance.operationOnMachine(getJobOfMachine(machine, taskIndex), machine);
     }
 
+    /** Decoder used by {@link #toSchedule()}, created on first use and never shared with copies.
+     * Guarded by the lock of the order, so that concurrent decodings of the same order do not corrupt each other. */
+    private TopologicalDecoder decoder;
+
+    /** Decodes the resource order with a decoder kept by the order, so that decoding it again allocates nothing.
+     * Callers that decode many orders can reuse their own decoder with {@link #toSchedule(TopologicalDecoder)}. */
     @Override
-    public Optional<Schedule> toSchedule() {
-        // indicates, for each task that have been scheduled, its start time
-        Schedule schedule = new Schedule(instance);
-
-        // for each job, how many tasks have been scheduled (0 initially)
-        int[] nextToScheduleByJob = new int[instance.numJobs];
-
-        // for each machine, how many tasks have been scheduled (0 initially)
-        int[] nextToScheduleByMachine = new int[instance.numMachines];
-
-        // for each machine, earliest time at which the machine can be used
-        int[] releaseTimeOfMachine = new int[instance.numMachines];
-
-
-        // loop while there remains a job that has unscheduled tasks
-        while(IntStream.range(0, instance.numJobs).anyMatch(m -> nextToScheduleByJob[m] < instance.numTasks)) {
-
-            // selects a task that has no unscheduled predecessor on its job and machine :
-            //  - it is the next to be schedule on a machine
-            //  - it is the next to be scheduled on its job
-            // If there is no such task, we have cyclic dependency and the solution is invalid.
-            Optional<Task> schedulable =
-                    IntStream.range(0, instance.numMachines) // all machines ...
-                    .filter(m -> nextToScheduleByMachine[m] < instance.numJobs) // ... with unscheduled jobs
-                    .mapToObj(m -> this.tasksByMachine[m][nextToScheduleByMachine[m]]) // tasks that are next to schedule on a machine ...
-                    .filter(task -> task.task == nextToScheduleByJob[task.job])  // ... and on their job
-                    .findFirst(); // select the first one if any
-
-            if(schedulable.isPresent()) {
-                // we have a schedulable task, lets call it t
-                Task t = schedulable.get();
-                int machine = instance.machine(t.job, t.task);
-
-                // compute the earliest start time (est) of the task
-                int est = t.task == 0 ? 0 : schedule.endTime(t.job, t.task-1);
-                est = Math.max(est, releaseTimeOfMachine[instance.machine(t)]);
-                schedule.setStartTime(t.job, t.task, est);
-
-                // mark the task as scheduled
-                nextToScheduleByJob[t.job]++;
-                nextToScheduleByMachine[machine]++;
-                // increase the release time of the machine
-                releaseTimeOfMachine[machine] = est + instance.duration(t.job, t.task);
-            } else {
-                // no tasks are schedulable, there is no solution for this resource ordering
-                return Optional.empty();
-            }
+    public synchronized Optional<Schedule> toSchedule() {
+        if(decoder == null)
+            decoder = new TopologicalDecoder(instance);
+        return toSchedule(decoder);
+    }
+
+    /** Decodes the resource order with a decoder owned by the caller, that must not be used by another thread. */
+    public Optional<Schedule> toSchedule(TopologicalDecoder decoder) {
+        if(!decoder.decode(this)) {
+            // incomplete resource order or cyclic dependency: there is no solution for this resource ordering
+            return Optional.empty();
         }
-        // we exited the loop : all tasks have been scheduled successfully
-        return Optional.of(schedule);
+        return Optional.of(decoder.toSchedule());
     }
 
     /** Creates an exact copy of this resource order.
@@ -168,7 +163,7 @@ public final class ResourceOrder extends Encoding {
             s.append("Machine ").append(m).append(" : ");
             for(int j=0; j<instance.numJobs; j++)
             {
-                s.append(tasksByMachine[m][j]).append(" ; ");
+                s.append(getTaskOfMachine(m, j)).append(" ; ");
             }
             s.append("\n");
         }
@@ -181,12 +176,12 @@ public final class ResourceOrder extends Encoding {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ResourceOrder that = (ResourceOrder) o;
-        return Arrays.deepEquals(tasksByMachine, that.tasksByMachine) && Arrays.equals(nextFreeSlot, that.nextFreeSlot);
+        return Arrays.equals(jobsByMachine, that.jobsByMachine) && Arrays.equals(nextFreeSlot, that.nextFreeSlot);
     }
 
     @Override
     public int hashCode() {
-        int result = Arrays.hashCode(tasksByMachine);
+        int result = Arrays.hashCode(jobsByMachine);
         result = 31 * result + Arrays.hashCode(nextFreeSlot);
         return result;
     }
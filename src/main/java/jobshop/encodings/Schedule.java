@@ -3,7 +3,6 @@ package jobshop.encodings;
 import jobshop.Instance;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /** Direct encoding of the solution to JobShop problem.
@@ -12,23 +11,27 @@ import java.util.stream.IntStream;
  */
 public class Schedule extends Encoding {
 
-    // start times of each job and task
-    // times[j][i] is the start time of task (j,i) : i^th task of the j^th job
-    final int[][] times;
+    // start times of each job and task, indexed by operation id
+    // times[instance.operation(j, i)] is the start time of task (j,i) : i^th task of the j^th job
+    final int[] times;
 
     /** Creates a new schedule for the given instance where all start times are uninitialized. */
     public Schedule(Instance instance) {
         super(instance);
-        this.times = new int[instance.numJobs][];
-        for(int j = 0; j < instance.numJobs ; j++) {
-            this.times[j] = new int[instance.numTasks];
-        }
+        this.times = new int[instance.numOperations];
+    }
+
+    /** Creates a new schedule whose start times, indexed by operation id, are copied from the given array. */
+    Schedule(Instance instance, int[] startTimes) {
+        super(instance);
+        this.times = new int[instance.numOperations];
+        System.arraycopy(startTimes, 0, this.times, 0, instance.numOperations);
     }
 
 
     /** Start time of the given task. */
     public int startTime(int job, int task) {
-        return times[job][task];
+        return times[instance.operation(job, task)];
     }
 
     /** Start time of the given task. */
@@ -48,7 +51,7 @@ public class Schedule extends Encoding {
 
     /** Sets the start time of the given task. */
     public void setStartTime(int job, int task, int startTime) {
-        times[job][task] = startTime;
+        times[instance.operation(job, task)] = startTime;
     }
 
     /** Returns true if this schedule is valid (no constraint is violated) */
@@ -109,53 +112,55 @@ public class Schedule extends Encoding {
     }
 
     /** Computes a critical path of the schedule.
+     *
+     * The path is built backwards from the task that finishes last: the predecessor of a task is its predecessor on
+     * the job if it ends exactly when the task starts, otherwise the task of the same machine that ends at this time.
+     * When the schedule comes from a ResourceOrder, {@link TopologicalDecoder#criticalPath(int[])} gives the same
+     * path without searching for machine predecessors.
      *
      * @return A sequence of task along a critical path.
      */
     public List<Task> criticalPath() {
-        // select task with greatest end time
-        Task ldd = IntStream.range(0, instance.numJobs)
-                .mapToObj(j -> new Task(j, instance.numTasks-1))
-                .max(Comparator.comparing(this::endTime))
-                .get();
-        assert endTime(ldd) == makespan();
+        // select task with greatest end time (first job in case of ties)
+        int lastJob = 0;
+        for(int j = 1; j < instance.numJobs ; j++) {
+            if(endTime(j, instance.numTasks-1) > endTime(lastJob, instance.numTasks-1))
+                lastJob = j;
+        }
+        int job = lastJob;
+        int task = instance.numTasks-1;
+        assert endTime(job, task) == makespan();
 
         // list that will contain the critical path.
         // we construct it from the end, starting with the
-        // task that finishes last
-        LinkedList<Task> path = new LinkedList<>();
-        path.add(0,ldd);
+        // task that finishes last, and reverse it at the end
+        ArrayList<Task> path = new ArrayList<>();
+        path.add(new Task(job, task));
 
         // keep adding tasks to the path until the first task in the path
         // starts a time 0
-        while(startTime(path.getFirst()) != 0) {
-            Task cur = path.getFirst();
-            int machine = instance.machine(cur.job, cur.task);
-
-            // will contain the task that was delaying the start
-            // of our current task
-            Optional<Task> latestPredecessor = Optional.empty();
-
-            if(cur.task > 0) {
-                // our current task has a predecessor on the job
-                Task predOnJob = new Task(cur.job, cur.task -1);
-
-                // if it was the delaying task, save it to predecessor
-                if(endTime(predOnJob) == startTime(cur))
-                    latestPredecessor = Optional.of(predOnJob);
-            }
-            if(latestPredecessor.isEmpty()) {
-                // no latest predecessor found yet, look among tasks executing on the same machine
-                latestPredecessor = IntStream.range(0, instance.numJobs)
-                        .mapToObj(j -> new Task(j, instance.task_with_machine(j, machine)))
-                        .filter(t -> endTime(t) == startTime(cur))
-                        .findFirst();
+        while(startTime(job, task) != 0) {
+            int start = startTime(job, task);
+
+            if(task > 0 && endTime(job, task-1) == start) {
+                // our current task has a predecessor on the job, that was the delaying task
+                task = task-1;
+            } else {
+                // look among tasks executing on the same machine for the one that was delaying the current task
+                int machine = instance.machine(job, task);
+                int predJob = -1;
+                for(int j = 0; j < instance.numJobs && predJob == -1 ; j++) {
+                    if(endTime(j, instance.task_with_machine(j, machine)) == start)
+                        predJob = j;
+                }
+                // at this point we should have identified a latest predecessor on the machine
+                assert predJob != -1;
+                job = predJob;
+                task = instance.task_with_machine(predJob, machine);
             }
-            // at this point we should have identified a latest predecessor, either on the job or on the machine
-            assert latestPredecessor.isPresent() && endTime(latestPredecessor.get()) == startTime(cur);
-            // insert predecessor at the beginning of the path
-            path.add(0, latestPredecessor.get());
+            path.add(new Task(job, task));
         }
+        Collections.reverse(path);
         assert isCriticalPath(path);
         return path;
     }
@@ -248,20 +253,11 @@ public class Schedule extends Encoding {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Schedule schedule = (Schedule) o;
-        if (times.length != schedule.times.length) {
-            return false;
-        }
-        for(int i=0; i<times.length; i++) {
-            if (!Arrays.equals(times[i], schedule.times[i])) {
-                return false;
-            }
-        }
-        return true;
+        return instance.numTasks == schedule.instance.numTasks && Arrays.equals(times, schedule.times);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.stream(times).map(Arrays::hashCode).collect(Collectors.toList()).hashCode();
-
+        return Arrays.hashCode(times);
     }
 }
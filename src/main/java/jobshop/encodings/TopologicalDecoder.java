@@ -0,0 +1,221 @@
+package jobshop.encodings;
+
+import jobshop.Instance;
+
+/** Decodes a ResourceOrder into its semi-active schedule.
+ *
+ * The resource order defines a disjunctive graph where each operation has (at most) one predecessor on its job
+ * and one predecessor on its machine. The decoder performs a topological traversal of this graph (Kahn's algorithm):
+ * an operation becomes ready once both of its predecessors have been scheduled, and its start time (head) is the
+ * latest end time of its predecessors. If some operations are never ready, the graph contains a cycle and the
+ * resource order does not represent a valid solution.
+ *
+ * All working data is kept in primitive arrays that are allocated once for a given instance, so that a decoder
+ * can be reused to evaluate any number of resource orders without allocating.
+ * A decoder is not thread safe.
+ */
+public final class TopologicalDecoder {
+
+    /** Instance of the resource orders that can be decoded. */
+    public final Instance instance;
+
+    /** For each operation, the next operation on the same machine (-1 if it is the last one). */
+    final int[] machineSuccessor;
+
+    /** For each operation, the previous operation on the same machine (-1 if it is the first one). */
+    final int[] machinePredecessor;
+
+    /** For each operation, number of predecessors that are not scheduled yet. */
+    private final int[] remainingPredecessors;
+
+    /** Operations in the order in which they were scheduled. Used as a FIFO queue of ready operations. */
+    final int[] topologicalOrder;
+
+    /** Start time of each operation in the last decoded resource order. */
+    final int[] heads;
+
+    /** For each operation, the predecessor (on its job or machine) whose end time determined its start time.
+     * -1 if the operation starts at time 0. The job predecessor is preferred in case of ties. */
+    final int[] criticalPredecessor;
+
+    /** For each operation, its position in the sequence of its machine. */
+    final int[] machinePosition;
+
+    /** True if the last decoding was successful, i.e., the resource order was complete and acyclic. */
+    private boolean valid = false;
+
+    /** Makespan of the last successfully decoded resource order. */
+    private int makespan = -1;
+
+    /** Creates a new decoder for resource orders on the given instance. */
+    public TopologicalDecoder(Instance instance) {
+        this.instance = instance;
+        int n = instance.numOperations;
+        this.machineSuccessor = new int[n];
+        this.machinePredecessor = new int[n];
+        this.remainingPredecessors = new int[n];
+        this.topologicalOrder = new int[n];
+        this.heads = new int[n];
+        this.criticalPredecessor = new int[n];
+        this.machinePosition = new int[n];
+    }
+
+    /** Computes the semi-active schedule of the given resource order.
+     *
+     * Results can be accessed with {@link #startTime(int)}, {@link #makespan()} or {@link #toSchedule()}.
+     *
+     * @return True if the resource order is valid (all tasks are placed and there is no cycle), false otherwise.
+     */
+    public boolean decode(ResourceOrder order) {
+        final Instance pb = instance;
+        final int numTasks = pb.numTasks;
+        valid = false;
+        makespan = -1;
+
+        // build the machine successor/predecessor relations
+        for(int m = 0 ; m < pb.numMachines ; m++) {
+            if(order.nextFreeSlot[m] != pb.numJobs)
+                return false; // incomplete resource order
+            int previous = -1;
+            for(int i = 0 ; i < pb.numJobs ; i++) {
+                int op = order.operationAt(m, i);
+                machinePosition[op] = i;
+                machinePredecessor[op] = previous;
+                if(previous != -1)
+                    machineSuccessor[previous] = op;
+                previous = op;
+            }
+            machineSuccessor[previous] = -1;
+        }
+
+        // count predecessors and enqueue the operations that can start right away
+        int queueEnd = 0;
+        for(int op = 0 ; op < pb.numOperations ; op++) {
+            int count = (op % numTasks == 0 ? 0 : 1) + (machinePredecessor[op] == -1 ? 0 : 1);
+            remainingPredecessors[op] = count;
+            heads[op] = 0;
+            criticalPredecessor[op] = -1;
+            if(count == 0)
+                topologicalOrder[queueEnd++] = op;
+        }
+
+        // process ready operations in FIFO order
+        int max = 0;
+        for(int queueStart = 0 ; queueStart < queueEnd ; queueStart++) {
+            int op = topologicalOrder[queueStart];
+            int end = heads[op] + pb.operationDuration(op);
+            if(end > max)
+                max = end;
+
+            // successor on the job (preferred as critical predecessor on ties)
+            if((op + 1) % numTasks != 0) {
+                int next = op + 1;
+                if(end > 0 && end >= heads[next]) {
+                    heads[next] = end;
+                    criticalPredecessor[next] = op;
+                }
+                if(--remainingPredecessors[next] == 0)
+                    topologicalOrder[queueEnd++] = next;
+            }
+            // successor on the machine
+            int next = machineSuccessor[op];
+            if(next != -1) {
+                if(end > heads[next]) {
+                    heads[next] = end;
+                    criticalPredecessor[next] = op;
+                }
+                if(--remainingPredecessors[next] == 0)
+                    topologicalOrder[queueEnd++] = next;
+            }
+        }
+
+        // some operations were never ready : there is a cycle
+        if(queueEnd != pb.numOperations)
+            return false;
+
+        valid = true;
+        makespan = max;
+        return true;
+    }
+
+    /** True if the last call to {@link #decode(ResourceOrder)} succeeded. */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /** Start time of the given operation in the last decoded resource order. */
+    public int startTime(int op) {
+        return heads[op];
+    }
+
+    /** Next operation on the machine of the given one in the last decoded resource order (-1 if none). */
+    public int machineSuccessor(int op) {
+        return machineSuccessor[op];
+    }
+
+    /** Previous operation on the machine of the given one in the last decoded resource order (-1 if none). */
+    public int machinePredecessor(int op) {
+        return machinePredecessor[op];
+    }
+
+    /** The i-th operation of a topological ordering of the last successfully decoded resource order. */
+    public int topologicalOrder(int i) {
+        return topologicalOrder[i];
+    }
+
+    /** Position of the given operation in the sequence of its machine in the last decoded resource order. */
+    public int machinePosition(int op) {
+        return machinePosition[op];
+    }
+
+    /** Predecessor (on the job or on the machine) that determines the start time of the given operation in the last
+     * decoded resource order, or -1 if it starts at time 0. */
+    public int criticalPredecessor(int op) {
+        return criticalPredecessor[op];
+    }
+
+    /** Computes a critical path of the last decoded resource order by following the critical predecessors from
+     * the task that finishes last (the first one in job order in case of ties).
+     *
+     * @param path Array of size at least <code>instance.numOperations</code>, filled with the operations of the path
+     *             from the one starting at time 0 to the one finishing at the makespan.
+     * @return Number of operations on the path.
+     */
+    public int criticalPath(int[] path) {
+        assert valid;
+        int last = -1;
+        int lastEnd = -1;
+        for(int job = 0 ; job < instance.numJobs ; job++) {
+            int op = instance.operation(job, instance.numTasks - 1);
+            int end = heads[op] + instance.operationDuration(op);
+            if(end > lastEnd) {
+                last = op;
+                lastEnd = end;
+            }
+        }
+
+        // follow predecessors from the end, then reverse the path
+        int length = 0;
+        for(int op = last ; op != -1 ; op = criticalPredecessor[op]) {
+            path[length++] = op;
+        }
+        for(int i = 0, j = length - 1 ; i < j ; i++, j--) {
+            int tmp = path[i];
+            path[i] = path[j];
+            path[j] = tmp;
+        }
+        return length;
+    }
+
+    /** Makespan of the last decoded resource order, or -1 if it was not valid. */
+    public int makespan() {
+        return makespan;
+    }
+
+    /** Creates a schedule holding the start times of the last decoded resource order.
+     *  Must only be called after a successful decoding. */
+    public Schedule toSchedule() {
+        assert valid;
+        return new Schedule(instance, heads);
+    }
+}
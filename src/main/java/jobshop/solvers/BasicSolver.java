@@ -12,7 +12,7 @@ import java.util.Optional;
  **/
 public class BasicSolver implements Solver {
     @Override
-    public Optional<Schedule> solve(Instance instance, long deadline) {
+    public Optional<Schedule> solve(Instance instance, RunControl control) {
 
         // resource order that will be populated (initially empty)
         ResourceOrder sol = new ResourceOrder(instance);
@@ -28,7 +28,9 @@ public class BasicSolver implements Solver {
             }
         }
 
-        // Convert the resource order into a schedule and return it
-        return sol.toSchedule();
+        // Convert the resource order into a schedule, report it and return it
+        Optional<Schedule> schedule = sol.toSchedule();
+        schedule.ifPresent(s -> control.reportSolution(s.makespan(), () -> s));
+        return schedule;
     }
 }
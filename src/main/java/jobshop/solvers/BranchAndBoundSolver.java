@@ -0,0 +1,382 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Schedule;
+import jobshop.encodings.Task;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Exact solver exploring the disjunctive graph with a branch and bound.
+ *
+ * A node is a selection: a set of fixed precedences between pairs of tasks on the same machine. At each node:
+ * <ul>
+ *     <li>heads and tails are computed on the graph of the job precedences and of the selection (a cycle closes
+ *     the node),</li>
+ *     <li>pairs of unfixed tasks are fixed when one of their orders cannot lead to a solution better than the
+ *     incumbent (immediate selection), and heads and tails are adjusted until no more pair can be fixed,</li>
+ *     <li>the lower bound is the largest of the longest path through a task and of the Jackson preemptive schedule
+ *     of each machine with these heads and tails; the node is closed if it is not below the incumbent,</li>
+ *     <li>a solution extending the selection is built by dispatching tasks at their earliest start, and may
+ *     improve the incumbent. If all the machine arcs of its critical path are in the selection, this path exists
+ *     in all the solutions of the node, which is then solved. Otherwise the search branches on an unfixed arc of
+ *     a critical block, in both directions.</li>
+ * </ul>
+ * The initial incumbent is given by a heuristic solver (a short taboo search by default). Subtrees are explored
+ * in parallel on a fork/join pool, whose idle workers steal the pending subtrees of the others.
+ *
+ * When the run control stops the search, the bounds of the pending nodes give a lower bound of the optimum. The
+ * result of the last run is available as an {@link OptimalityCertificate}, that can also be written to a directory.
+ * The search is intended for small and medium instances: its memory is linear in the depth of the tree, but its
+ * running time is exponential.
+ */
+public class BranchAndBoundSolver implements Solver {
+
+    /** Solver providing the initial incumbent. */
+    final Solver incumbentSolver;
+
+    final int numThreads;
+
+    /** Directory in which a certificate is written after each run, null if they are not written. */
+    final Path certificateDirectory;
+
+    private volatile OptimalityCertificate lastCertificate;
+
+    /**
+     * @param incumbentSolver Solver providing the initial incumbent.
+     * @param numThreads Number of threads exploring the tree.
+     * @param certificateDirectory Directory in which a certificate is written after each run, or null.
+     */
+    public BranchAndBoundSolver(Solver incumbentSolver, int numThreads, Path certificateDirectory) {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + numThreads);
+        this.incumbentSolver = incumbentSolver;
+        this.numThreads = numThreads;
+        this.certificateDirectory = certificateDirectory;
+    }
+
+    /** Branch and bound on all processors, starting from a short taboo search. */
+    public BranchAndBoundSolver() {
+        this(new TabooSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT), 2000, 10),
+                Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    @Override
+    public int numThreads() {
+        return Math.max(numThreads, incumbentSolver.numThreads());
+    }
+
+    /** Certificate of the last run, null if no solution was found yet. */
+    public OptimalityCertificate lastCertificate() {
+        return lastCertificate;
+    }
+
+    @Override
+    public Optional<Schedule> solve(Instance instance, RunControl control) {
+        long start = System.nanoTime();
+        Search search = new Search(instance, control);
+        Optional<Schedule> initial = incumbentSolver.solve(instance, control);
+        initial.ifPresent(schedule -> search.offer(new ResourceOrder(schedule), schedule.makespan()));
+
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            pool.invoke(new Node(search, new boolean[instance.numMachines * instance.numJobs * instance.numJobs], LowerBound.value(instance, control)));
+        } finally {
+            pool.shutdown();
+        }
+
+        SharedIncumbent.Solution best = search.incumbent.get();
+        if (best == null)
+            return Optional.empty();
+        Schedule schedule = best.order.toSchedule().get();
+        int lowerBound = Math.min(search.openBound.get(), best.makespan);
+        lastCertificate = new OptimalityCertificate(instance.name, schedule, lowerBound, search.nodes.get(),
+                (System.nanoTime() - start) / 1_000_000);
+        if (certificateDirectory != null) {
+            try {
+                lastCertificate.write(certificateDirectory.resolve(instance.name + ".certificate"));
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot write the certificate of " + instance.name, e);
+            }
+        }
+        return Optional.of(schedule);
+    }
+
+    /** State of a search shared by all nodes. */
+    private static final class Search {
+        final Instance instance;
+        final RunControl control;
+        final SharedIncumbent incumbent = new SharedIncumbent();
+        /** Smallest lower bound of the nodes that were abandoned when the search was stopped. */
+        final AtomicInteger openBound = new AtomicInteger(Integer.MAX_VALUE);
+        final AtomicLong nodes = new AtomicLong();
+        /** Buffers of the worker threads. */
+        final ThreadLocal<Workspace> workspaces;
+
+        Search(Instance instance, RunControl control) {
+            this.instance = instance;
+            this.control = control;
+            this.workspaces = ThreadLocal.withInitial(() -> new Workspace(instance));
+        }
+
+        void offer(ResourceOrder order, int makespan) {
+            if (incumbent.offer(order, makespan))
+                control.reportSolution(makespan, () -> order.toSchedule().get());
+        }
+
+        /** Makespan that a solution must strictly improve. */
+        int upperBound() {
+            return incumbent.makespan();
+        }
+    }
+
+    /** Exploration of the subtree of a selection. */
+    private static final class Node extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Search search;
+        /** fixed[(m * numJobs + a) * numJobs + b] if job a precedes job b on machine m. Owned by the node. */
+        final boolean[] fixed;
+        /** Lower bound of the parent node. */
+        final int parentBound;
+
+        Node(Search search, boolean[] fixed, int parentBound) {
+            this.search = search;
+            this.fixed = fixed;
+            this.parentBound = parentBound;
+        }
+
+        @Override
+        protected void compute() {
+            if (parentBound >= search.upperBound())
+                return;
+            if (search.control.shouldStop()) {
+                search.openBound.accumulateAndGet(parentBound, Math::min);
+                return;
+            }
+            search.nodes.incrementAndGet();
+            search.control.countIteration();
+
+            Workspace ws = search.workspaces.get();
+            int bound = ws.propagate(fixed, search.upperBound());
+            if (bound == Workspace.CLOSED)
+                return;
+            bound = Math.max(bound, parentBound);
+            int makespan = ws.extend(fixed);
+            if (makespan < search.upperBound())
+                search.offer(ws.extensionOrder(), makespan);
+            int arc = ws.branchingArc(fixed);
+            if (arc == -1 || bound >= search.upperBound())
+                return;
+
+            // arc = (m * numJobs + a) * numJobs + b with a before b in the extension: try both orders
+            int n = search.instance.numJobs;
+            int reversed = arc - (arc % (n * n)) + (arc % n) * n + (arc / n) % n;
+            boolean[] keep = fixed.clone();
+            keep[arc] = true;
+            fixed[reversed] = true;
+            Node keepChild = new Node(search, keep, bound);
+            keepChild.fork();
+            new Node(search, fixed, bound).compute();
+            keepChild.join();
+        }
+    }
+
+    /** Buffers for the evaluation of a node, one per worker thread. */
+    private static final class Workspace {
+        static final int CLOSED = -1;
+
+        final Instance instance;
+        final int numJobs;
+        /** Graph of the job precedences and of the selection, with its heads and tails. */
+        final DisjunctiveGraph graph;
+        final int[] head, tail;
+        // extension of the selection
+        final int[] start;
+        final int[] jobEnd, machineEnd;
+        final int[] nextTask, machineCount;
+        final int[] machineJobs;
+        final int[] machinePrevious;
+
+        Workspace(Instance instance) {
+            this.instance = instance;
+            this.numJobs = instance.numJobs;
+            int n = instance.numOperations;
+            this.graph = new DisjunctiveGraph(instance, instance.numMachines * numJobs * numJobs);
+            this.head = graph.head;
+            this.tail = graph.tail;
+            this.start = new int[n];
+            this.jobEnd = new int[numJobs];
+            this.machineEnd = new int[instance.numMachines];
+            this.nextTask = new int[numJobs];
+            this.machineCount = new int[instance.numMachines];
+            this.machineJobs = new int[instance.numMachines * numJobs];
+            this.machinePrevious = new int[n];
+        }
+
+        private int op(int job, int machine) {
+            return instance.operationOnMachine(job, machine);
+        }
+
+        /** Fixes the pairs that can only be ordered one way in a solution better than the upper bound, until none
+         * can be fixed, and returns the lower bound of the selection, or {@link #CLOSED} if it has no solution
+         * better than the upper bound. */
+        int propagate(boolean[] fixed, int upperBound) {
+            final Instance pb = instance;
+            boolean changed = true;
+            while (changed) {
+                if (!computeHeadsAndTails(fixed))
+                    return CLOSED;
+                changed = false;
+                for (int m = 0; m < pb.numMachines; m++) {
+                    for (int a = 0; a < numJobs; a++) {
+                        int opA = op(a, m);
+                        int pA = pb.operationDuration(opA);
+                        for (int b = a + 1; b < numJobs; b++) {
+                            int ab = (m * numJobs + a) * numJobs + b;
+                            int ba = (m * numJobs + b) * numJobs + a;
+                            if (fixed[ab] || fixed[ba])
+                                continue;
+                            int opB = op(b, m);
+                            int pB = pb.operationDuration(opB);
+                            boolean abPossible = head[opA] + pA + pB + tail[opB] < upperBound;
+                            boolean baPossible = head[opB] + pB + pA + tail[opA] < upperBound;
+                            if (!abPossible && !baPossible)
+                                return CLOSED;
+                            if (!abPossible) {
+                                fixed[ba] = true;
+                                changed = true;
+                            } else if (!baPossible) {
+                                fixed[ab] = true;
+                                changed = true;
+                            }
+                        }
+                    }
+                }
+            }
+            int bound = graph.makespan;
+            for (int m = 0; m < pb.numMachines && bound < upperBound; m++) {
+                bound = Math.max(bound, graph.jacksonPreemptiveSchedule(m));
+            }
+            return bound < upperBound ? bound : CLOSED;
+        }
+
+        /** Heads and tails of the graph of the job precedences and of the selection.
+         *
+         * @return False if the graph has a cycle.
+         */
+        boolean computeHeadsAndTails(boolean[] fixed) {
+            final Instance pb = instance;
+            graph.clearArcs();
+            for (int m = 0; m < pb.numMachines; m++) {
+                for (int a = 0; a < numJobs; a++) {
+                    for (int b = 0; b < numJobs; b++) {
+                        if (fixed[(m * numJobs + a) * numJobs + b])
+                            graph.addArc(op(a, m), op(b, m));
+                    }
+                }
+            }
+            return graph.computeHeadsAndTails();
+        }
+
+        /** Builds a solution of the selection, by dispatching at each step the task with the earliest start among
+         * the tasks whose job and selection predecessors are dispatched (largest tail first in case of ties).
+         *
+         * @return The makespan of the solution.
+         */
+        int extend(boolean[] fixed) {
+            final Instance pb = instance;
+            Arrays.fill(nextTask, 0);
+            Arrays.fill(jobEnd, 0);
+            Arrays.fill(machineEnd, 0);
+            Arrays.fill(machineCount, 0);
+            int makespan = 0;
+            for (int step = 0; step < pb.numOperations; step++) {
+                int selected = -1;
+                int selectedStart = 0;
+                for (int job = 0; job < numJobs; job++) {
+                    if (nextTask[job] >= pb.numTasks)
+                        continue;
+                    int op = pb.operation(job, nextTask[job]);
+                    int m = pb.operationMachine(op);
+                    if (!selectionPredecessorsDone(fixed, job, m))
+                        continue;
+                    int est = Math.max(jobEnd[job], machineEnd[m]);
+                    if (selected == -1 || est < selectedStart || (est == selectedStart && tail[op] > tail[selected])) {
+                        selected = op;
+                        selectedStart = est;
+                    }
+                }
+                // the selection is acyclic, so some task can always be dispatched
+                int job = pb.operationJob(selected);
+                int m = pb.operationMachine(selected);
+                int end = selectedStart + pb.operationDuration(selected);
+                start[selected] = selectedStart;
+                machinePrevious[selected] = machineCount[m] == 0 ? -1 : op(machineJobs[m * numJobs + machineCount[m] - 1], m);
+                machineJobs[m * numJobs + machineCount[m]++] = job;
+                jobEnd[job] = end;
+                machineEnd[m] = end;
+                nextTask[job]++;
+                makespan = Math.max(makespan, end);
+            }
+            return makespan;
+        }
+
+        private boolean selectionPredecessorsDone(boolean[] fixed, int job, int machine) {
+            for (int other = 0; other < numJobs; other++) {
+                if (fixed[(machine * numJobs + other) * numJobs + job]
+                        && nextTask[other] <= instance.task_with_machine(other, machine))
+                    return false;
+            }
+            return true;
+        }
+
+        /** Resource order of the last extension. */
+        ResourceOrder extensionOrder() {
+            ResourceOrder order = new ResourceOrder(instance);
+            for (int m = 0; m < instance.numMachines; m++) {
+                for (int k = 0; k < numJobs; k++) {
+                    int job = machineJobs[m * numJobs + k];
+                    order.addTaskToMachine(m, new Task(job, instance.task_with_machine(job, m)));
+                }
+            }
+            return order;
+        }
+
+        /** An arc (a before b on machine m, encoded as (m * numJobs + a) * numJobs + b) of a critical path of the
+         * last extension, that is not in the selection, or -1 if all its arcs are. */
+        int branchingArc(boolean[] fixed) {
+            final Instance pb = instance;
+            int last = -1;
+            for (int op = 0; op < pb.numOperations; op++) {
+                if (last == -1 || start[op] + pb.operationDuration(op) > start[last] + pb.operationDuration(last))
+                    last = op;
+            }
+            int arc = -1;
+            int op = last;
+            while (op != -1) {
+                int predecessor = -1;
+                if (pb.operationTask(op) > 0 && start[op - 1] + pb.operationDuration(op - 1) == start[op]) {
+                    predecessor = op - 1;
+                } else {
+                    int previous = machinePrevious[op];
+                    if (previous != -1 && start[previous] + pb.operationDuration(previous) == start[op]) {
+                        int candidate = (pb.operationMachine(op) * numJobs + pb.operationJob(previous)) * numJobs + pb.operationJob(op);
+                        if (!fixed[candidate])
+                            arc = candidate; // keeps the arc closest to the beginning of the path
+                        predecessor = previous;
+                    }
+                }
+                op = predecessor;
+            }
+            return arc;
+        }
+    }
+}
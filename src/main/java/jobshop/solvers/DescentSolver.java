@@ -3,10 +3,15 @@ package jobshop.solvers;
 import jobshop.Instance;
 import jobshop.encodings.ResourceOrder;
 import jobshop.encodings.Schedule;
+import jobshop.solvers.neighborhood.IncrementalEvaluator;
+import jobshop.solvers.neighborhood.MoveEvaluator;
 import jobshop.solvers.neighborhood.Neighborhood;
+import jobshop.solvers.neighborhood.Nowicki;
+import jobshop.solvers.neighborhood.ParallelNeighborhoodEvaluator;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 /** An empty shell to implement a descent solver. */
 public class DescentSolver implements Solver {
@@ -14,55 +19,149 @@ public class DescentSolver implements Solver {
     final Neighborhood neighborhood;
     final Solver baseSolver;
 
+    /** Minimal number of swaps of a Nowicki neighborhood for which they are evaluated in parallel on the common
+     * fork/join pool. */
+    final int parallelThreshold;
+
+    /** If true, the first improving neighbor is selected instead of the best one, and the remaining neighbors
+     * are not generated. */
+    final boolean firstImprovement;
+
     /** Creates a new descent solver with a given neighborhood and a solver for the initial solution.
      *
      * @param neighborhood Neighborhood object that should be used to generates neighbor solutions to the current candidate.
      * @param baseSolver A solver to provide the initial solution.
      */
     public DescentSolver(Neighborhood neighborhood, Solver baseSolver) {
+        this(neighborhood, baseSolver, Integer.MAX_VALUE);
+    }
+
+    /** Creates a new descent solver that evaluates the swaps of a Nowicki neighborhood in parallel when there are
+     * at least parallelThreshold of them. */
+    public DescentSolver(Neighborhood neighborhood, Solver baseSolver, int parallelThreshold) {
+        this(neighborhood, baseSolver, parallelThreshold, false);
+    }
+
+    /** Creates a new descent solver that moves to the first improving neighbor if firstImprovement is true,
+     * or to the best neighbor otherwise. */
+    public DescentSolver(Neighborhood neighborhood, Solver baseSolver, int parallelThreshold, boolean firstImprovement) {
         this.neighborhood = neighborhood;
         this.baseSolver = baseSolver;
+        this.parallelThreshold = parallelThreshold;
+        this.firstImprovement = firstImprovement;
+    }
+
+    @Override
+    public Optional<Solver> withBaseSolver(Solver baseSolver) {
+        return Optional.of(new DescentSolver(neighborhood, baseSolver, parallelThreshold, firstImprovement));
+    }
+
+    @Override
+    public int numThreads() {
+        // the neighborhoods are evaluated on the common pool, with the help of the calling thread
+        int own = parallelThreshold == Integer.MAX_VALUE ? 1 : ForkJoinPool.getCommonPoolParallelism() + 1;
+        return baseSolver == null ? own : Math.max(own, baseSolver.numThreads());
     }
 
     @Override
-    public Optional<Schedule> solve(Instance instance, long deadline) {
+    public Optional<Schedule> solve(Instance instance, RunControl control) {
         // On trouve la solution du solver actuel
-        Optional<Schedule> schedule = this.baseSolver.solve(instance, deadline);
+        Optional<Schedule> schedule = this.baseSolver.solve(instance, control);
+        if (schedule.isEmpty()) {
+            return schedule;
+        }
 
-        // Tant qu'on ne trouve pas de voisin améliorant ou de timeout on continue
-        boolean foundSolution = false;
-        int timeout = 0;
-        while (!foundSolution && timeout <= 100) {
-            // find neighbours thanks to the resource order
-            List<ResourceOrder> neighborhood = this.neighborhood.generateNeighbors(new ResourceOrder(schedule.get()));
+        // single working solution on which all moves are applied then reverted
+        ResourceOrder current = new ResourceOrder(schedule.get());
+        descend(current, new IncrementalEvaluator(instance), control);
+        return current.toSchedule();
+    }
+
+    /** Runs the descent from a solution, until a local optimum is reached or the run control says to stop.
+     *
+     * @param current Starting solution, modified in place by the descent.
+     * @param evaluator Evaluator that is attached to the working solution by this method.
+     * @param control Stop conditions of the run.
+     * @return Makespan of the solution at the end of the descent.
+     */
+    int descend(ResourceOrder current, IncrementalEvaluator evaluator, RunControl control) {
+        evaluator.reset(current);
+        MoveEvaluator moveEvaluator = new MoveEvaluator(evaluator);
+        ParallelNeighborhoodEvaluator neighborEvaluator =
+                new ParallelNeighborhoodEvaluator(evaluator, ForkJoinPool.commonPool(), parallelThreshold);
+        Neighborhood.Cursor cursor = this.neighborhood.newCursor();
+        int bestMakespan = evaluator.makespan();
+        control.reportSolution(bestMakespan, () -> current.toSchedule().get());
 
+        // Tant qu'on ne trouve pas de voisin améliorant ou que le run n'est pas arrêté on continue
+        boolean foundSolution = false;
+        while (!foundSolution && !control.shouldStop()) {
+            control.countIteration();
             // initialisation
-            int bestNeighbor = -1;
+            Neighborhood.Move bestMove = null;
             int bestNeighborSpan = -1;
-            int bestMakespan = schedule.get().makespan();
-
-            // itération sur chaque voisin
-            for (int i=0; i<neighborhood.size(); i++) {
-                int currentSpan = neighborhood.get(i).toSchedule().get().makespan();
-                // trouver le meilleur voisin
-                if (currentSpan < bestNeighborSpan || bestNeighborSpan == -1) {
-                    bestNeighborSpan = currentSpan;
-                    bestNeighbor = i;
+
+            if (this.firstImprovement) {
+                // neighbors are enumerated one at a time, until one improves the current solution
+                cursor.reset(evaluator);
+                int evaluated = 0;
+                while (bestMove == null && cursor.next()) {
+                    evaluated++;
+                    int currentSpan;
+                    if (cursor instanceof Nowicki.SwapCursor) {
+                        Nowicki.SwapCursor swap = (Nowicki.SwapCursor) cursor;
+                        currentSpan = moveEvaluator.evaluate(swap.machine(), swap.t1(), swap.t2(), bestMakespan);
+                    } else {
+                        currentSpan = evaluator.evaluate(cursor.move());
+                    }
+                    if (currentSpan < bestMakespan) {
+                        bestMove = cursor.move();
+                        bestNeighborSpan = currentSpan;
+                    }
+                }
+                control.countEvaluations(evaluated);
+            } else if (this.neighborhood instanceof Nowicki) {
+                // the swaps are evaluated by chunks in parallel, the first best one is selected
+                List<Nowicki.Swap> swaps = ((Nowicki) this.neighborhood).allSwaps(evaluator);
+                control.countEvaluations(swaps.size());
+                int selected = neighborEvaluator.selectBest(swaps, null, 0);
+                if (selected != -1) {
+                    bestMove = swaps.get(selected);
+                    bestNeighborSpan = neighborEvaluator.selectedMakespan();
+                }
+            } else {
+                // find neighbours thanks to the resource order
+                List<? extends Neighborhood.Move> moves = this.neighborhood.moves(evaluator);
+                control.countEvaluations(moves.size());
+
+                // itération sur chaque voisin
+                for (Neighborhood.Move move : moves) {
+                    // swaps that cannot beat the best neighbor are discarded from their estimate
+                    int currentSpan = move instanceof Nowicki.Swap
+                            ? moveEvaluator.evaluate((Nowicki.Swap) move, bestNeighborSpan == -1 ? Integer.MAX_VALUE : bestNeighborSpan)
+                            : evaluator.evaluate(move);
+                    // trouver le meilleur voisin
+                    if (currentSpan != IncrementalEvaluator.INFEASIBLE
+                            && (currentSpan < bestNeighborSpan || bestNeighborSpan == -1)) {
+                        bestNeighborSpan = currentSpan;
+                        bestMove = move;
+                    }
                 }
             }
 
-            // si on trouve une meilleur solution alors on met fin à la boucle
-            if (bestNeighborSpan >= bestMakespan) {
+            // si on ne trouve pas de meilleure solution alors on met fin à la boucle
+            if (bestMove == null || bestNeighborSpan >= bestMakespan) {
                 foundSolution = true;
             }
             else {
-                schedule = neighborhood.get(bestNeighbor).toSchedule();
+                // only the selected move is committed on the current solution
+                evaluator.apply(bestMove);
+                bestMakespan = bestNeighborSpan;
+                control.reportSolution(bestMakespan, () -> current.toSchedule().get());
             }
-
-            timeout++;
         }
 
-        return schedule;
+        return bestMakespan;
     }
 
 }
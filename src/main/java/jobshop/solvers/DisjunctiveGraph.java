@@ -0,0 +1,199 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+
+import java.util.Arrays;
+
+/** Disjunctive graph of the job precedences and of a set of machine arcs, with the heads and tails of its
+ * operations and the one-machine bounds they give. Shared by {@link LowerBound} (no machine arcs),
+ * {@link ShiftingBottleneckSolver} (the sequences of the sequenced machines) and {@link BranchAndBoundSolver} (the
+ * pairs fixed by the branching).
+ *
+ * The head of an operation is the length of the longest path before it, its tail the length of the longest path
+ * after it, excluding its own duration. The buffers are reused between computations, so an instance of this class
+ * must not be shared between threads.
+ */
+final class DisjunctiveGraph {
+    final Instance instance;
+    final int[] head, tail;
+    /** Position of each operation in the last topological order. */
+    final int[] rank;
+    /** Length of the longest path, as of the last computation of heads and tails. */
+    int makespan;
+
+    // machine arcs, as linked lists: the successors of op are arcTo[a] for a = firstArc[op], nextArc[a], ... != -1
+    private final int[] firstArc;
+    private final int[] nextArc, arcTo;
+    private int numArcs = 0;
+
+    private final int[] indegree, topological;
+
+    // operations of each machine: machineOps[machineStart[m] .. machineStart[m + 1])
+    private final int[] machineStart, machineOps;
+    // Jackson preemptive schedule
+    private final long[] byHead;
+    private final int[] remaining;
+
+    /**
+     * @param maxArcs Largest number of machine arcs of the graph.
+     */
+    DisjunctiveGraph(Instance instance, int maxArcs) {
+        this.instance = instance;
+        final int n = instance.numOperations;
+        this.head = new int[n];
+        this.tail = new int[n];
+        this.rank = new int[n];
+        this.firstArc = new int[n];
+        Arrays.fill(firstArc, -1);
+        this.nextArc = new int[maxArcs];
+        this.arcTo = new int[maxArcs];
+        this.indegree = new int[n];
+        this.topological = new int[n];
+
+        this.machineStart = new int[instance.numMachines + 1];
+        for (int op = 0; op < n; op++) {
+            machineStart[instance.operationMachine(op) + 1]++;
+        }
+        for (int m = 0; m < instance.numMachines; m++) {
+            machineStart[m + 1] += machineStart[m];
+        }
+        this.machineOps = new int[n];
+        int[] fill = Arrays.copyOf(machineStart, instance.numMachines);
+        for (int op = 0; op < n; op++) {
+            machineOps[fill[instance.operationMachine(op)]++] = op;
+        }
+        this.byHead = new long[n];
+        this.remaining = new int[n];
+    }
+
+    /** Removes all machine arcs. */
+    void clearArcs() {
+        Arrays.fill(firstArc, -1);
+        numArcs = 0;
+    }
+
+    /** Adds a machine arc: the operation to is processed after the operation from. */
+    void addArc(int from, int to) {
+        arcTo[numArcs] = to;
+        nextArc[numArcs] = firstArc[from];
+        firstArc[from] = numArcs++;
+    }
+
+    /** Heads and tails of all operations, and length of the longest path, computed with Kahn's algorithm.
+     *
+     * @return False if the graph has a cycle (heads and tails are then meaningless).
+     */
+    boolean computeHeadsAndTails() {
+        final Instance pb = instance;
+        for (int op = 0; op < pb.numOperations; op++) {
+            indegree[op] = pb.operationTask(op) > 0 ? 1 : 0;
+            head[op] = 0;
+        }
+        for (int a = 0; a < numArcs; a++) {
+            indegree[arcTo[a]]++;
+        }
+        int size = 0;
+        for (int op = 0; op < pb.numOperations; op++) {
+            if (indegree[op] == 0)
+                topological[size++] = op;
+        }
+        for (int i = 0; i < size; i++) {
+            int op = topological[i];
+            rank[op] = i;
+            int end = head[op] + pb.operationDuration(op);
+            if (pb.operationTask(op) + 1 < pb.numTasks) {
+                head[op + 1] = Math.max(head[op + 1], end);
+                if (--indegree[op + 1] == 0)
+                    topological[size++] = op + 1;
+            }
+            for (int a = firstArc[op]; a != -1; a = nextArc[a]) {
+                int succ = arcTo[a];
+                head[succ] = Math.max(head[succ], end);
+                if (--indegree[succ] == 0)
+                    topological[size++] = succ;
+            }
+        }
+        if (size < pb.numOperations)
+            return false;
+        makespan = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            int op = topological[i];
+            int q = 0;
+            if (pb.operationTask(op) + 1 < pb.numTasks)
+                q = pb.operationDuration(op + 1) + tail[op + 1];
+            for (int a = firstArc[op]; a != -1; a = nextArc[a]) {
+                int succ = arcTo[a];
+                q = Math.max(q, pb.operationDuration(succ) + tail[succ]);
+            }
+            tail[op] = q;
+            makespan = Math.max(makespan, head[op] + pb.operationDuration(op) + q);
+        }
+        return true;
+    }
+
+    /** Makespan of the Jackson preemptive schedule of the tasks of a machine, with the current heads and tails: at
+     * any time, the released task with the largest tail is processed, until it completes or another task is
+     * released. It solves the preemptive relaxation of the one-machine problem exactly, hence is a lower bound of
+     * any solution containing the machine arcs of the graph.
+     */
+    int jacksonPreemptiveSchedule(int machine) {
+        final int from = machineStart[machine];
+        final int count = machineStart[machine + 1] - from;
+        for (int i = 0; i < count; i++) {
+            int op = machineOps[from + i];
+            byHead[i] = ((long) head[op] << 32) | op;
+        }
+        Arrays.sort(byHead, 0, count);
+        int bound = 0;
+        int done = 0;
+        for (int i = 0; i < count; i++) {
+            int op = (int) byHead[i];
+            remaining[op] = instance.operationDuration(op);
+            if (remaining[op] == 0) {
+                // a task of zero duration still has to start after its head and be followed by its tail
+                done++;
+                bound = Math.max(bound, head[op] + tail[op]);
+            }
+        }
+        int time = 0;
+        int released = 0; // tasks byHead[0 .. released) are released
+        while (done < count) {
+            while (released < count && head[(int) byHead[released]] <= time)
+                released++;
+            int selected = -1;
+            for (int i = 0; i < released; i++) {
+                int op = (int) byHead[i];
+                if (remaining[op] > 0 && (selected == -1 || tail[op] > tail[selected]))
+                    selected = op;
+            }
+            if (selected == -1) {
+                time = head[(int) byHead[released]];
+                continue;
+            }
+            int nextRelease = released < count ? head[(int) byHead[released]] : Integer.MAX_VALUE;
+            int run = Math.min(remaining[selected], nextRelease - time);
+            time += run;
+            remaining[selected] -= run;
+            if (remaining[selected] == 0) {
+                done++;
+                bound = Math.max(bound, time + tail[selected]);
+            }
+        }
+        return bound;
+    }
+
+    /** Smallest head plus load plus smallest tail of the tasks of a machine (0 if it has no task). */
+    int machineBound(int machine) {
+        int from = machineStart[machine], to = machineStart[machine + 1];
+        if (from == to)
+            return 0;
+        int load = 0, minHead = Integer.MAX_VALUE, minTail = Integer.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            int op = machineOps[i];
+            load += instance.operationDuration(op);
+            minHead = Math.min(minHead, head[op]);
+            minTail = Math.min(minTail, tail[op]);
+        }
+        return minHead + load + minTail;
+    }
+}
@@ -0,0 +1,235 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.util.Arrays;
+
+/** Event-driven construction of a resource order, by repeatedly dispatching the next task of one of the jobs.
+ *
+ * Jobs that still have tasks to schedule are kept in a binary heap ordered by the priority rule, with keys stored
+ * in primitive arrays. The remaining work of each job and the number of unfinished jobs are maintained as tasks
+ * are dispatched, so that each step costs O(log J) and the construction of a whole solution O(J.M.log J).
+ *
+ * For the EST rules, the earliest start time of a job can only increase when another job is dispatched on the
+ * machine of its next task. Keys are therefore updated lazily: when the top of the heap has an outdated start
+ * time, it is reinserted with its current one, and the first job whose key is up to date is the one to dispatch.
+ *
+ * Ties are broken in favor of the job with the lowest index, as in the list-based selection of {@link GreedySolver}.
+ * Constructions that select jobs by themselves can use the state of the dispatcher and dispatch any unfinished job.
+ * A dispatcher is not thread safe.
+ */
+public final class Dispatcher {
+
+    public final Instance instance;
+    public final GreedySolver.Priority priority;
+
+    /** Index of the next task to dispatch for each job (numTasks if the job is finished). */
+    private final int[] nextTask;
+    /** Sum of the durations of the tasks of each job that are not dispatched yet. */
+    private final int[] remainingWork;
+    /** End time of the last dispatched task of each job and of each machine. */
+    private final int[] jobReady;
+    private final int[] machineFree;
+    private int unfinishedJobs;
+    private int makespan;
+
+    // heap of jobs, with the keys they were inserted with
+    private final int[] heapJob;
+    private final long[] heapKey;
+    /** Position of each job in the heap, -1 if it is not in it. */
+    private final int[] heapIndex;
+    private int heapSize;
+
+    public Dispatcher(Instance instance, GreedySolver.Priority priority) {
+        this.instance = instance;
+        this.priority = priority;
+        this.nextTask = new int[instance.numJobs];
+        this.remainingWork = new int[instance.numJobs];
+        this.jobReady = new int[instance.numJobs];
+        this.machineFree = new int[instance.numMachines];
+        // each unfinished job is in the heap exactly once
+        this.heapJob = new int[instance.numJobs];
+        this.heapKey = new long[instance.numJobs];
+        this.heapIndex = new int[instance.numJobs];
+        reset();
+    }
+
+    /** Restarts the construction of a new solution. */
+    public void reset() {
+        heapSize = 0;
+        unfinishedJobs = 0;
+        makespan = 0;
+        Arrays.fill(machineFree, 0);
+        Arrays.fill(heapIndex, -1);
+        for (int job = 0; job < instance.numJobs; job++) {
+            nextTask[job] = 0;
+            jobReady[job] = 0;
+            int work = 0;
+            for (int task = 0; task < instance.numTasks; task++) {
+                work += instance.duration(job, task);
+            }
+            remainingWork[job] = work;
+            if (instance.numTasks > 0) {
+                unfinishedJobs++;
+                push(job);
+            }
+        }
+    }
+
+    /** True if some tasks are not dispatched yet. */
+    public boolean hasNext() {
+        return unfinishedJobs > 0;
+    }
+
+    /** Number of jobs that still have tasks to dispatch. */
+    public int unfinishedJobs() {
+        return unfinishedJobs;
+    }
+
+    /** Index of the next task of the job to dispatch. */
+    public int nextTask(int job) {
+        return nextTask[job];
+    }
+
+    /** Earliest start time of the next task of a job, given the tasks dispatched so far. */
+    public int earliestStart(int job) {
+        return Math.max(jobReady[job], machineFree[instance.machine(job, nextTask[job])]);
+    }
+
+    /** Sum of the durations of the tasks of the job that are not dispatched yet. */
+    public int remainingWork(int job) {
+        return remainingWork[job];
+    }
+
+    /** Makespan of the tasks dispatched so far. */
+    public int makespan() {
+        return makespan;
+    }
+
+    /** Current priority of the next task of an unfinished job, as given by {@link GreedySolver.Priority#key}. */
+    public long key(int job) {
+        int task = nextTask[job];
+        int start = priority.isEst() ? earliestStart(job) : 0;
+        return priority.key(instance, job, task, start, remainingWork[job]);
+    }
+
+    /** Dispatches the next task of the job selected by the priority rule and adds it to the resource order.
+     *
+     * @return The job whose task was dispatched.
+     */
+    public int dispatchNext(ResourceOrder order) {
+        int job = selectNext();
+        dispatch(job, order);
+        return job;
+    }
+
+    /** Job selected by the priority rule, that is left in the heap. */
+    private int selectNext() {
+        assert heapSize > 0;
+        if (priority.isEst()) {
+            // lazy update of outdated start times, stored in the high bits of the keys
+            while ((int) (heapKey[0] >>> 32) != earliestStart(heapJob[0])) {
+                heapKey[0] = key(heapJob[0]);
+                siftDown(0);
+            }
+        }
+        return heapJob[0];
+    }
+
+    /** Dispatches, at its earliest start time, the next task of an unfinished job and adds it to the resource order. */
+    public void dispatch(int job, ResourceOrder order) {
+        removeAt(heapIndex[job]);
+        int task = nextTask[job];
+        int machine = instance.machine(job, task);
+        int duration = instance.duration(job, task);
+        int end = earliestStart(job) + duration;
+        jobReady[job] = end;
+        machineFree[machine] = end;
+        remainingWork[job] -= duration;
+        makespan = Math.max(makespan, end);
+        order.addTaskToMachine(machine, new Task(job, task));
+
+        nextTask[job]++;
+        if (nextTask[job] < instance.numTasks) {
+            push(job);
+        } else {
+            unfinishedJobs--;
+        }
+    }
+
+    /** Builds a complete resource order by dispatching all tasks according to the priority rule. */
+    public ResourceOrder build() {
+        reset();
+        ResourceOrder order = new ResourceOrder(instance);
+        while (hasNext()) {
+            dispatchNext(order);
+        }
+        return order;
+    }
+
+    private void push(int job) {
+        int i = heapSize++;
+        heapJob[i] = job;
+        heapKey[i] = key(job);
+        heapIndex[job] = i;
+        siftUp(i);
+    }
+
+    private void removeAt(int i) {
+        heapIndex[heapJob[i]] = -1;
+        heapSize--;
+        if (i == heapSize)
+            return;
+        move(heapSize, i);
+        siftDown(i);
+        siftUp(i);
+    }
+
+    /** True if the entry at position a must be dispatched before the one at position b. */
+    private boolean before(int a, int b) {
+        if (heapKey[a] != heapKey[b])
+            return heapKey[a] < heapKey[b];
+        return heapJob[a] < heapJob[b];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(i, parent))
+                return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize)
+                return;
+            if (child + 1 < heapSize && before(child + 1, child))
+                child++;
+            if (!before(child, i))
+                return;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void move(int from, int to) {
+        heapJob[to] = heapJob[from];
+        heapKey[to] = heapKey[from];
+        heapIndex[heapJob[to]] = to;
+    }
+
+    private void swap(int a, int b) {
+        int job = heapJob[a];
+        long key = heapKey[a];
+        move(b, a);
+        heapJob[b] = job;
+        heapKey[b] = key;
+        heapIndex[job] = b;
+    }
+}
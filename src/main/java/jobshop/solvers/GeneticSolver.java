@@ -0,0 +1,271 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.JobRepetition;
+import jobshop.encodings.Schedule;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Genetic algorithm on the job repetition encoding (see {@link JobRepetition}).
+ *
+ * Each generation keeps the best individuals of the population (elitism) and fills the rest of the next
+ * population with children of parents selected by binary tournaments. A child is built with the job-based order
+ * crossover (JOX): the occurrences of a random subset of the jobs stay at their positions in the first parent, and
+ * the other positions receive the remaining occurrences in the order of the second parent. It is then mutated, with
+ * a given probability, by exchanging two occurrences of different jobs. Since every permutation of the sequence is
+ * a feasible solution, no repair is needed.
+ *
+ * The sequences of the current and next populations live in two flat int arrays that are swapped after each
+ * generation, so that no chromosome is allocated during the run. The children of a generation are decoded in
+ * parallel on a fork/join pool, one chunk of the population per worker, each worker having its own decoder.
+ * Only the creation of the children uses the random generator, so a run with a given seed and number of
+ * generations gives the same result whatever the number of threads.
+ */
+public class GeneticSolver implements Solver {
+
+    final int populationSize;
+
+    /** Number of best individuals copied unchanged in the next generation. */
+    final int eliteSize;
+
+    /** Probability that a child is mutated. */
+    final double mutationRate;
+
+    /** If true, sequences are decoded into active schedules, otherwise into semi-active ones. */
+    final boolean active;
+
+    /** Number of threads decoding the population. */
+    final int numThreads;
+
+    final long seed;
+
+    /** Solver providing one individual of the initial population, the others being random sequences. */
+    final Solver baseSolver;
+
+    /**
+     * @param baseSolver Solver providing one individual of the initial population.
+     * @param populationSize Number of individuals of the population.
+     * @param eliteSize Number of best individuals kept in the next generation.
+     * @param mutationRate Probability that a child is mutated.
+     * @param active If true, sequences are decoded into active schedules.
+     * @param numThreads Number of threads decoding the population.
+     * @param seed Seed of the random generator.
+     */
+    public GeneticSolver(Solver baseSolver, int populationSize, int eliteSize, double mutationRate, boolean active, int numThreads, long seed) {
+        if (populationSize < 2 || eliteSize < 0 || eliteSize >= populationSize || numThreads < 1)
+            throw new IllegalArgumentException("Invalid genetic parameters: populationSize=" + populationSize
+                    + ", eliteSize=" + eliteSize + ", numThreads=" + numThreads);
+        this.baseSolver = baseSolver;
+        this.populationSize = populationSize;
+        this.eliteSize = eliteSize;
+        this.mutationRate = mutationRate;
+        this.active = active;
+        this.numThreads = numThreads;
+        this.seed = seed;
+    }
+
+    @Override
+    public int numThreads() {
+        return baseSolver == null ? numThreads : Math.max(numThreads, baseSolver.numThreads());
+    }
+
+    @Override
+    public Optional<Schedule> solve(Instance instance, RunControl control) {
+        final int n = instance.numOperations;
+        SplittableRandom random = new SplittableRandom(seed);
+
+        int[] population = new int[populationSize * n];
+        int[] next = new int[populationSize * n];
+        int[] fitness = new int[populationSize];
+        int[] nextFitness = new int[populationSize];
+        // fitness in the high bits and index in the low bits, sorted to find the elite
+        long[] ranking = new long[populationSize];
+        int[] bestSequence = new int[n];
+        int bestMakespan = Integer.MAX_VALUE;
+
+        // scratch buffers of the crossover
+        boolean[] kept = new boolean[instance.numJobs];
+
+        // initial population: the solution of the base solver, then random sequences
+        Optional<Schedule> initial = baseSolver == null ? Optional.empty() : baseSolver.solve(instance, control);
+        for (int i = 0; i < populationSize; i++) {
+            JobRepetition.fillDefault(instance, population, i * n);
+            shuffle(population, i * n, n, random);
+        }
+        if (initial.isPresent()) {
+            JobRepetition sequence = new JobRepetition(initial.get());
+            for (int k = 0; k < n; k++) {
+                population[k] = sequence.jobAt(k);
+            }
+        }
+
+        ForkJoinPool pool = numThreads > 1 ? new ForkJoinPool(numThreads) : null;
+        JobRepetition.Decoder[] decoders = new JobRepetition.Decoder[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            decoders[t] = new JobRepetition.Decoder(instance);
+        }
+        try {
+            evaluate(pool, decoders, population, fitness, 0, populationSize, n);
+            control.countEvaluations(populationSize);
+
+            while (true) {
+                for (int i = 0; i < populationSize; i++) {
+                    ranking[i] = ((long) fitness[i] << 32) | i;
+                }
+                Arrays.sort(ranking);
+                int leader = (int) ranking[0];
+                if (fitness[leader] < bestMakespan) {
+                    bestMakespan = fitness[leader];
+                    System.arraycopy(population, leader * n, bestSequence, 0, n);
+                    control.reportSolution(bestMakespan, () -> decodeBest(instance, bestSequence));
+                }
+                if (control.shouldStop())
+                    break;
+                control.countIteration();
+
+                // elite
+                for (int e = 0; e < eliteSize; e++) {
+                    int index = (int) ranking[e];
+                    System.arraycopy(population, index * n, next, e * n, n);
+                    nextFitness[e] = fitness[index];
+                }
+                // children
+                for (int c = eliteSize; c < populationSize; c++) {
+                    int parent1 = tournament(fitness, random);
+                    int parent2 = tournament(fitness, random);
+                    crossover(instance, population, parent1 * n, parent2 * n, next, c * n, kept, random);
+                    if (random.nextDouble() < mutationRate) {
+                        mutate(next, c * n, n, random);
+                    }
+                }
+                evaluate(pool, decoders, next, nextFitness, eliteSize, populationSize, n);
+                control.countEvaluations(populationSize - eliteSize);
+
+                int[] tmp = population;
+                population = next;
+                next = tmp;
+                tmp = fitness;
+                fitness = nextFitness;
+                nextFitness = tmp;
+            }
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+        }
+
+        JobRepetition.Decoder decoder = decoders[0];
+        decoder.decode(bestSequence, 0, active);
+        return Optional.of(decoder.toSchedule());
+    }
+
+    /** Schedule of the best sequence, decoded without disturbing the decoders of the population. */
+    private Schedule decodeBest(Instance instance, int[] bestSequence) {
+        JobRepetition.Decoder decoder = new JobRepetition.Decoder(instance);
+        decoder.decode(bestSequence, 0, active);
+        return decoder.toSchedule();
+    }
+
+    /** Index of the best of two random individuals. */
+    private int tournament(int[] fitness, SplittableRandom random) {
+        int a = random.nextInt(populationSize);
+        int b = random.nextInt(populationSize);
+        return fitness[a] <= fitness[b] ? a : b;
+    }
+
+    /** Random permutation of the n values starting at the offset. */
+    private static void shuffle(int[] sequences, int offset, int n, SplittableRandom random) {
+        for (int i = n - 1; i > 0; i--) {
+            int k = random.nextInt(i + 1);
+            int tmp = sequences[offset + i];
+            sequences[offset + i] = sequences[offset + k];
+            sequences[offset + k] = tmp;
+        }
+    }
+
+    /** Job-based order crossover of the sequences at offsets p1 and p2, written at the given offset of child. */
+    static void crossover(Instance instance, int[] parents, int p1, int p2, int[] child, int offset,
+                          boolean[] kept, SplittableRandom random) {
+        for (int job = 0; job < instance.numJobs; job++) {
+            kept[job] = random.nextBoolean();
+        }
+        int fill = 0; // next position of the second parent to look at
+        for (int i = 0; i < instance.numOperations; i++) {
+            int job = parents[p1 + i];
+            if (!kept[job]) {
+                while (kept[parents[p2 + fill]])
+                    fill++;
+                job = parents[p2 + fill++];
+            }
+            child[offset + i] = job;
+        }
+    }
+
+    /** Exchanges two occurrences of different jobs in the sequence starting at the offset (if there are two jobs). */
+    private static void mutate(int[] sequences, int offset, int n, SplittableRandom random) {
+        for (int attempt = 0; attempt < 10; attempt++) {
+            int i = offset + random.nextInt(n);
+            int k = offset + random.nextInt(n);
+            if (sequences[i] != sequences[k]) {
+                int tmp = sequences[i];
+                sequences[i] = sequences[k];
+                sequences[k] = tmp;
+                return;
+            }
+        }
+    }
+
+    /** Computes the makespans of the individuals in [from, to), in parallel if there is a pool. */
+    private void evaluate(ForkJoinPool pool, JobRepetition.Decoder[] decoders, int[] sequences, int[] fitness,
+                          int from, int to, int n) {
+        if (pool == null) {
+            decodeRange(decoders[0], sequences, fitness, from, to, n);
+        } else {
+            pool.invoke(new Chunks(decoders, sequences, fitness, from, to, n, 0, decoders.length));
+        }
+    }
+
+    private void decodeRange(JobRepetition.Decoder decoder, int[] sequences, int[] fitness, int from, int to, int n) {
+        for (int i = from; i < to; i++) {
+            fitness[i] = decoder.decode(sequences, i * n, active);
+        }
+    }
+
+    /** Decoding of the chunks [firstChunk, lastChunk) of the individuals in [from, to), one decoder per chunk. */
+    private final class Chunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final JobRepetition.Decoder[] decoders;
+        private final int[] sequences, fitness;
+        private final int from, to, n;
+        private final int firstChunk, lastChunk;
+
+        Chunks(JobRepetition.Decoder[] decoders, int[] sequences, int[] fitness, int from, int to, int n, int firstChunk, int lastChunk) {
+            this.decoders = decoders;
+            this.sequences = sequences;
+            this.fitness = fitness;
+            this.from = from;
+            this.to = to;
+            this.n = n;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastChunk - firstChunk == 1) {
+                int numChunks = decoders.length;
+                int start = from + (int) ((long) (to - from) * firstChunk / numChunks);
+                int end = from + (int) ((long) (to - from) * lastChunk / numChunks);
+                decodeRange(decoders[firstChunk], sequences, fitness, start, end, n);
+                return;
+            }
+            int middle = (firstChunk + lastChunk) >>> 1;
+            invokeAll(new Chunks(decoders, sequences, fitness, from, to, n, firstChunk, middle),
+                    new Chunks(decoders, sequences, fitness, from, to, n, middle, lastChunk));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Schedule;
+
+import java.util.Optional;
+
+/** Builds active schedules with the algorithm of Giffler and Thompson.
+ *
+ * At each step, the next task with the earliest completion time C* is found, and its machine M* is selected.
+ * The conflict set contains the next tasks of all jobs that need M* and can start before C*: one of them is
+ * scheduled, according to the priority rule. No task can then be started earlier without delaying another one,
+ * so the schedules are active, whereas the greedy solvers can leave avoidable idle time on the machines.
+ *
+ * The same construction can decode any resource order into an active schedule, the order of the tasks on each
+ * machine being used as the priority ({@link #activeDecode(ResourceOrder)}).
+ */
+public class GifflerThompsonSolver extends GreedySolver {
+
+    /** Creates a new Giffler-Thompson solver resolving the conflicts with the given priority. */
+    public GifflerThompsonSolver(Priority p) {
+        super(p);
+    }
+
+    @Override
+    public Optional<Schedule> solve(Instance instance, RunControl control) {
+        ResourceOrder order = new ResourceOrder(instance);
+        new Construction(instance, priority).build(order, null);
+        Optional<Schedule> schedule = order.toSchedule();
+        schedule.ifPresent(s -> control.reportSolution(s.makespan(), () -> s));
+        return schedule;
+    }
+
+    /** Active decoding of a resource order.
+     *
+     * Conflicts are resolved in favor of the task that comes first on the machine in the given order. The result is
+     * the given order when its semi-active schedule is already active, and otherwise an order whose schedule is
+     * active and usually shorter. The given order does not need to be valid: the result always is.
+     *
+     * @param order A complete resource order, that is not modified.
+     * @return A resource order whose semi-active schedule is active.
+     */
+    public static ResourceOrder activeDecode(ResourceOrder order) {
+        Instance instance = order.instance;
+        // position of each operation on its machine
+        int[] position = new int[instance.numOperations];
+        for (int m = 0; m < instance.numMachines; m++) {
+            for (int k = 0; k < instance.numJobs; k++) {
+                position[order.operationAt(m, k)] = k;
+            }
+        }
+        ResourceOrder active = new ResourceOrder(instance);
+        // the priority rule is not used
+        new Construction(instance, Priority.SPT).build(active, position);
+        return active;
+    }
+
+    /** State of a partial schedule, with the conflict set of the current step. */
+    private static final class Construction {
+        final Instance instance;
+
+        /** Dispatches the tasks, and gives the priority of the jobs in the conflict set. */
+        final Dispatcher dispatcher;
+        /** Jobs whose next task is in the conflict set. */
+        final int[] conflict;
+
+        Construction(Instance instance, Priority priority) {
+            this.instance = instance;
+            this.dispatcher = new Dispatcher(instance, priority);
+            this.conflict = new int[instance.numJobs];
+        }
+
+        /** Schedules all tasks and adds them to the given empty resource order.
+         *
+         * @param position If not null, conflicts are resolved by the position of the operations on their machine
+         *                 instead of the priority rule.
+         */
+        void build(ResourceOrder order, int[] position) {
+            dispatcher.reset();
+            while (dispatcher.hasNext()) {
+                // next task with the earliest completion time
+                int starJob = -1;
+                int starEnd = Integer.MAX_VALUE;
+                for (int job = 0; job < instance.numJobs; job++) {
+                    if (dispatcher.nextTask(job) >= instance.numTasks) continue;
+                    int end = dispatcher.earliestStart(job) + instance.duration(job, dispatcher.nextTask(job));
+                    if (end < starEnd) {
+                        starJob = job;
+                        starEnd = end;
+                    }
+                }
+                int starMachine = instance.machine(starJob, dispatcher.nextTask(starJob));
+
+                // conflict set: tasks on the same machine that can start before this completion time
+                int size = 0;
+                for (int job = 0; job < instance.numJobs; job++) {
+                    if (dispatcher.nextTask(job) >= instance.numTasks
+                            || instance.machine(job, dispatcher.nextTask(job)) != starMachine)
+                        continue;
+                    // the selected task itself is kept even if it has a zero duration
+                    if (dispatcher.earliestStart(job) < starEnd || job == starJob)
+                        conflict[size++] = job;
+                }
+
+                int selected = conflict[0];
+                if (position == null) {
+                    long bestKey = dispatcher.key(selected);
+                    for (int i = 1; i < size; i++) {
+                        long key = dispatcher.key(conflict[i]);
+                        if (key < bestKey) {
+                            selected = conflict[i];
+                            bestKey = key;
+                        }
+                    }
+                } else {
+                    for (int i = 1; i < size; i++) {
+                        if (position[instance.operation(conflict[i], dispatcher.nextTask(conflict[i]))]
+                                < position[instance.operation(selected, dispatcher.nextTask(selected))])
+                            selected = conflict[i];
+                    }
+                }
+                dispatcher.dispatch(selected, order);
+            }
+        }
+    }
+}
@@ -4,11 +4,29 @@ import jobshop.Instance;
 import jobshop.encodings.ResourceOrder;
 import jobshop.encodings.Schedule;
 import jobshop.encodings.Task;
+import jobshop.solvers.neighborhood.IncrementalEvaluator;
+import jobshop.solvers.neighborhood.Nowicki;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.Random;
-
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Randomized greedy solver, that can be used as a GRASP (greedy randomized adaptive search procedure).
+ *
+ * Solutions are built by dispatching tasks as in {@link GreedySolver}, except that at each step, with a given
+ * probability, the next task is drawn uniformly in a restricted candidate list: the next tasks of the jobs with
+ * the best priorities. Each construction can be followed by a descent, and the best solution is returned.
+ *
+ * Constructions are spread over several threads, each with its own random generator and buffers. They go on until
+ * the given number of constructions is reached or the run control says to stop, and at least one solution is
+ * always built. The number of constructions of the last run and their rate are available after the run.
+ */
 public class GreedyRandomSolver extends GreedySolver{
 
     /**
@@ -16,13 +34,70 @@ public class GreedyRandomSolver extends GreedySolver{
      */
     final int repeat;
 
+    /** Number of candidates among which a randomized step draws the next job. */
+    final int rclSize;
+
+    /** Probability that a step is randomized instead of following the priority rule. */
+    final double randomization;
+
+    /** Number of threads building solutions in parallel. */
+    final int numThreads;
+
+    /** Descent applied to each constructed solution, null if there is none. */
+    final DescentSolver localSearch;
+
+    /** Seed of the random generators of the threads. */
+    final long seed;
+
+    /** Statistics of the last run. */
+    private volatile long lastConstructions = 0;
+    private volatile long lastRunNanos = 0;
 
     /**
      * Creates a new random greedy solver that will use the given priority.
+     * Each step picks a random unfinished job with probability 5%, and the best of repeat solutions is returned.
      */
     public GreedyRandomSolver(Priority p,int repeat) {
+        this(p, repeat, 0);
+    }
+
+    /** Random greedy solver returning the best of repeat solutions, with the given seed. */
+    public GreedyRandomSolver(Priority p, int repeat, long seed) {
+        this(p, repeat, Integer.MAX_VALUE, 0.05, 1, false, seed);
+    }
+
+    /**
+     * Creates a GRASP solver, building solutions until the run control says to stop.
+     *
+     * @param p Priority rule ordering the candidates.
+     * @param rclSize Size of the restricted candidate list, from which every step draws the next job.
+     * @param numThreads Number of threads building solutions in parallel.
+     * @param localSearch If true, a descent is applied to each constructed solution.
+     * @param seed Seed of the random generators.
+     */
+    public GreedyRandomSolver(Priority p, int rclSize, int numThreads, boolean localSearch, long seed) {
+        this(p, Integer.MAX_VALUE, rclSize, 1.0, numThreads, localSearch, seed);
+    }
+
+    /**
+     * @param p Priority rule ordering the candidates.
+     * @param repeat Maximal number of constructions.
+     * @param rclSize Size of the restricted candidate list.
+     * @param randomization Probability that a step draws the next job in the restricted candidate list.
+     * @param numThreads Number of threads building solutions in parallel.
+     * @param localSearch If true, a descent is applied to each constructed solution.
+     * @param seed Seed of the random generators.
+     */
+    public GreedyRandomSolver(Priority p, int repeat, int rclSize, double randomization, int numThreads, boolean localSearch, long seed) {
         super(p);
+        if (rclSize < 1 || numThreads < 1)
+            throw new IllegalArgumentException("Invalid GRASP parameters: rclSize=" + rclSize + ", numThreads=" + numThreads);
         this.repeat = repeat;
+        this.rclSize = rclSize;
+        this.randomization = randomization;
+        this.numThreads = numThreads;
+        this.localSearch = localSearch ? new DescentSolver(new Nowicki(), null) : null;
+        this.seed = seed;
     }
 
     public ArrayList<Task> extractDoable(ArrayList<Task> doableTasks){
@@ -39,116 +114,147 @@ public class GreedyRandomSolver extends GreedySolver{
 
 
     @Override
-    public Optional<Schedule> solve(Instance instance, long deadline){
-        // Solution is represented by a resource order object
-        ESTReturn res;
-        Task currentTask = new Task(0, 0);
-        ResourceOrder ro = new ResourceOrder(instance);
-        Optional<Schedule> schedule;
-        Optional<Schedule> toReturn;
-        Schedule best = null;
-        int machine;
-        // Set of tasks -> 1 task for each job
-        ArrayList<Task> doableTasks = InitDoableTasks(instance);
-        ArrayList<Task> lastDoneTasks = InitLastDoneTasks(instance);
-
-        ArrayList<Integer> finishingTimeMachines = new ArrayList<>();
-        ArrayList<Integer> jobCurrentTime = new ArrayList<>();
-
-        InitESTArrays(instance,finishingTimeMachines,jobCurrentTime);
-
-        int calc;
-
-        boolean noRemainingJobs = false;
-
-        int count = 0;
-
-        int minMakespan = Integer.MAX_VALUE;
-
-        Random rand = new Random();
-        int random;
-        int randomIndex;
-        ArrayList<Task> sublist;
-
-        while(count < this.repeat){
-            while (!noRemainingJobs) {
-                // Choisir tache appropriée
-                switch (this.priority) {
-                    case SPT:
-                        currentTask = SPTTask(instance, doableTasks);
-                        break;
-                    case LRPT:
-                        currentTask = LRPTTask(instance, doableTasks, lastDoneTasks);
-                        break;
-                    case LPT:
-                        currentTask = LPTTask(instance, doableTasks);
-                        break;
-                    case SRPT:
-                        currentTask = SRPTTask(instance, doableTasks, lastDoneTasks);
-                        break;
-                    case EST_SPT:
-                        res = EST_SPTTask(instance, doableTasks, finishingTimeMachines, jobCurrentTime);
-                        //System.out.println("res :" + res);
-                        currentTask = res.getTask();
-                        // Update finishing time for the job
-                        calc = res.getStartingTime() + instance.duration(currentTask);
-                        jobCurrentTime.set(currentTask.job, calc);
-                        // Update finishing time for the machine
-                        finishingTimeMachines.set(instance.machine(currentTask), calc);
-                        break;
-                    case EST_LRPT:
-                        res = EST_LRPTTask(instance, doableTasks, lastDoneTasks, finishingTimeMachines, jobCurrentTime);
-                        currentTask = res.getTask();
-                        // Update finishing time for the job
-                        calc = res.getStartingTime() + instance.duration(currentTask);
-                        jobCurrentTime.set(currentTask.job, calc);
-                        // Update finishing time for the machine
-                        finishingTimeMachines.set(instance.machine(currentTask), calc);
-                        break;
-                    default:
-                        // lots of things, hopefully not
+    public int numThreads() {
+        // each thread runs its own local search, whose base solver is null
+        return localSearch == null ? numThreads : numThreads * localSearch.numThreads();
+    }
 
+    /**
+     * Builds up to {@link #repeat} randomized greedy solutions and returns the best one.
+     * Constructions stop early when the run control says so, but at least one solution is always built.
+     */
+    @Override
+    public Optional<Schedule> solve(Instance instance, RunControl control){
+        long start = System.nanoTime();
+        SharedIncumbent incumbent = new SharedIncumbent();
+        // index of the next construction, shared by all threads
+        AtomicLong started = new AtomicLong();
+        AtomicLong built = new AtomicLong();
+
+        if (numThreads == 1) {
+            run(0, instance, control, started, built, incumbent);
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+            try {
+                List<Future<?>> threads = new ArrayList<>();
+                for (int thread = 0; thread < numThreads; thread++) {
+                    final int id = thread;
+                    threads.add(pool.submit(() -> run(id, instance, control, started, built, incumbent)));
                 }
-
-
-                // Ajouter de l'aleatoire
-                sublist = extractDoable(doableTasks);
-                random = rand.nextInt(100);
-                if (random >= 95){
-                    // select a task from the doable tasks
-                    randomIndex = rand.nextInt(sublist.size());
-                    currentTask = sublist.get(randomIndex);
+                for (Future<?> thread : threads) {
+                    thread.get();
                 }
+            } catch (InterruptedException e) {
+                control.cancel();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new RuntimeException("GRASP construction failed", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
 
-                machine = instance.machine(currentTask);
-                ro.addTaskToMachine(machine,currentTask);
-
+        lastConstructions = built.get();
+        lastRunNanos = System.nanoTime() - start;
+        SharedIncumbent.Solution best = incumbent.get();
+        return best == null ? Optional.empty() : best.order.toSchedule();
+    }
 
+    /** Number of solutions built during the last run. */
+    public long lastConstructions() {
+        return lastConstructions;
+    }
 
-                // mettre a jour l'ensemble des taches faisables
-                UpdateDoableTasks(instance, doableTasks, currentTask);
-                // Mettre a jour les taches deja faites
-                lastDoneTasks.set(currentTask.job, currentTask);
+    /** Number of solutions built per second during the last run. */
+    public double constructionsPerSecond() {
+        return lastRunNanos == 0 ? 0 : lastConstructions * 1e9 / lastRunNanos;
+    }
 
-                noRemainingJobs = noJobLeft(instance.numJobs, doableTasks);
+    /** Builds solutions until the number of constructions is reached or the run must stop. */
+    private void run(int thread, Instance instance, RunControl control, AtomicLong started, AtomicLong built, SharedIncumbent incumbent) {
+        Construction construction = new Construction(instance, new SplittableRandom(seed + thread));
+        IncrementalEvaluator evaluator = localSearch == null ? null : new IncrementalEvaluator(instance);
+        while (true) {
+            long index = started.getAndIncrement();
+            // the first construction is always done
+            if (index >= repeat || (index > 0 && control.shouldStop()))
+                return;
+            control.countIteration();
+            ResourceOrder ro = new ResourceOrder(instance);
+            int makespan = construction.build(ro);
+            if (evaluator != null) {
+                makespan = localSearch.descend(ro, evaluator, control);
             }
-
-            // Search for best result finishing time wise
-            schedule = ro.toSchedule();
-
-            if (schedule.isPresent()){
-                if (minMakespan > schedule.get().makespan()){
-                    minMakespan = schedule.get().makespan();
-                    best = schedule.get();
-                }
+            if (incumbent.offer(ro, makespan)) {
+                control.reportSolution(makespan, () -> ro.toSchedule().get());
             }
-            count++;
+            built.incrementAndGet();
         }
-        toReturn = Optional.ofNullable(best);
-        return toReturn;
     }
 
+    /** Buffers of a thread building randomized solutions. */
+    private final class Construction {
+        final Instance instance;
+        final SplittableRandom random;
 
+        /** State of the partial solution, reset for each construction. */
+        final Dispatcher dispatcher;
 
+        // Restricted candidate list: jobs sorted by priority, with their priorities
+        final int[] rcl;
+        final long[] rclKeys;
+
+        Construction(Instance instance, SplittableRandom random) {
+            this.instance = instance;
+            this.random = random;
+            this.dispatcher = new Dispatcher(instance, priority);
+            this.rcl = new int[instance.numJobs];
+            this.rclKeys = new long[Math.min(rclSize, instance.numJobs)];
+        }
 
+        /** Builds a randomized solution in the given empty resource order.
+         *
+         * @return Makespan of the solution.
+         */
+        int build(ResourceOrder ro) {
+            dispatcher.reset();
+            while (dispatcher.hasNext()) {
+                if (random.nextDouble() < randomization) {
+                    dispatcher.dispatch(drawCandidate(), ro);
+                } else {
+                    dispatcher.dispatchNext(ro);
+                }
+            }
+            // tasks are dispatched at their earliest start time, so this is the makespan of the decoded schedule
+            return dispatcher.makespan();
+        }
+
+        /** Draws uniformly one of the rclSize unfinished jobs with the best priorities. */
+        private int drawCandidate() {
+            int size = 0;
+            if (rclSize >= dispatcher.unfinishedJobs()) {
+                // all unfinished jobs are candidates, priorities are not needed
+                for (int job = 0; job < instance.numJobs; job++) {
+                    if (dispatcher.nextTask(job) < instance.numTasks)
+                        rcl[size++] = job;
+                }
+                return rcl[random.nextInt(size)];
+            }
+            // insertion of each unfinished job in the sorted list of the best ones
+            for (int job = 0; job < instance.numJobs; job++) {
+                if (dispatcher.nextTask(job) >= instance.numTasks) continue;
+                long key = dispatcher.key(job);
+                if (size == rclSize && key >= rclKeys[size - 1]) continue;
+                int i = size < rclSize ? size++ : size - 1;
+                while (i > 0 && rclKeys[i - 1] > key) {
+                    rcl[i] = rcl[i - 1];
+                    rclKeys[i] = rclKeys[i - 1];
+                    i--;
+                }
+                rcl[i] = job;
+                rclKeys[i] = key;
+            }
+            return rcl[random.nextInt(size)];
+        }
+    }
 }
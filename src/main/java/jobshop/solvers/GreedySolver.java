@@ -181,7 +181,7 @@ public class GreedySolver implements Solver {
         for (int i = 0; i < instance.numJobs; i++) {
             jobCurrentTime.add(0);
         }
-        for (int i = 0; i < instance.numTasks; i++) {
+        for (int i = 0; i < instance.numMachines; i++) {
             finishingTimeMachines.add(0);
         }
     }
@@ -196,29 +196,22 @@ public class GreedySolver implements Solver {
      * @return ArrayList of the starting times for each doable task
      */
     public ArrayList<ESTReturn> computeAvailableTime(Instance instance, ArrayList<Task> doableTasks, ArrayList<Integer> finishingTimeMachines, ArrayList<Integer> jobCurrentTime) {
-        ArrayList<ESTReturn> time = new ArrayList<>();
-        int taskFreeTime;
-        int machineFreeTime;
-        int machine;
-        int availableTime;
+        ArrayList<ESTReturn> time = new ArrayList<>(doableTasks.size());
         for (Task doableTask : doableTasks) {
-            // Retrieve finishing time for the machine
-
             if (doableTask.task >= 0) {
-                machine = instance.machine(doableTask);
-                machineFreeTime = finishingTimeMachines.get(machine);
-                // Retrieve current starting time for the task
-                taskFreeTime = jobCurrentTime.get(doableTask.job);
-                availableTime = Integer.max(taskFreeTime, machineFreeTime);
-                int job = doableTasks.indexOf(doableTask);
-
-                time.add(new ESTReturn(doableTask,availableTime));
-
+                time.add(new ESTReturn(doableTask, startingTime(instance, doableTask, finishingTimeMachines, jobCurrentTime)));
             }
         }
         return time;
     }
 
+    /**
+     * @return Earliest starting time of a doable task: the latest of the finishing times of its job and its machine.
+     */
+    private int startingTime(Instance instance, Task doableTask, ArrayList<Integer> finishingTimeMachines, ArrayList<Integer> jobCurrentTime) {
+        return Integer.max(jobCurrentTime.get(doableTask.job), finishingTimeMachines.get(instance.machine(doableTask)));
+    }
+
 
     /**
      * @param instance              The current instance
@@ -228,29 +221,7 @@ public class GreedySolver implements Solver {
      * @return Shortest processing time and nearest task is returned
      */
     public ESTReturn EST_SPTTask(Instance instance, ArrayList<Task> doableTasks, ArrayList<Integer> finishingTimeMachines, ArrayList<Integer> jobCurrentTime) {
-        ArrayList<Task> filteredTasks = new ArrayList<>();
-        // Compute starting time for doable Tasks
-        ArrayList<ESTReturn> time = computeAvailableTime(instance, doableTasks, finishingTimeMachines, jobCurrentTime);
-        // Find minimum times
-        int min = Integer.MAX_VALUE;
-        for (ESTReturn t : time) {
-            if (min > t.startingTime) {
-                min = t.startingTime;
-            }
-        }
-        // Add all tasks with the same minimum starting time
-        // Works because time is indexed with doableTasks !
-        for (ESTReturn estReturn : time) {
-            if (estReturn.startingTime == min){
-                filteredTasks.add(estReturn.task);
-            }
-        }
-
-        // Run the SPT choice with the filtered Array
-        Task chosenTask =  SPTTask(instance, filteredTasks);
-        ESTReturn result = new ESTReturn(chosenTask,min);
-        return result;
-
+        return estTask(Priority.EST_SPT, instance, doableTasks, null, finishingTimeMachines, jobCurrentTime);
     }
 
     /**
@@ -262,27 +233,59 @@ public class GreedySolver implements Solver {
      * @return Nearest and longest remaining processing time job's task is returned
      */
     public ESTReturn EST_LRPTTask(Instance instance, ArrayList<Task> doableTasks, ArrayList<Task> jobsLastDone, ArrayList<Integer> finishingTimeMachines, ArrayList<Integer> jobCurrentTime) {
+        return estTask(Priority.EST_LRPT, instance, doableTasks, jobsLastDone, finishingTimeMachines, jobCurrentTime);
+    }
 
-        ArrayList<Task> filteredTasks = new ArrayList<>();
-        // Compute starting time for doable Tasks
-        ArrayList<ESTReturn> time = computeAvailableTime(instance, doableTasks, finishingTimeMachines, jobCurrentTime);
-        // Find minimum times
+    /**
+     * Single pass over the doable tasks, keeping the first one with the best {@link Priority#key}.
+     * The remaining time is only computed for tasks that can start at the earliest time found so far.
+     *
+     * @param jobsLastDone Last finished task of each job, null if the rule does not use the remaining time
+     */
+    private ESTReturn estTask(Priority rule, Instance instance, ArrayList<Task> doableTasks, ArrayList<Task> jobsLastDone, ArrayList<Integer> finishingTimeMachines, ArrayList<Integer> jobCurrentTime) {
+        Task chosenTask = null;
         int min = Integer.MAX_VALUE;
-        for (ESTReturn t : time) {
-            if (min > t.startingTime) {
-                min = t.startingTime;
+        long minKey = Long.MAX_VALUE;
+        for (Task doableTask : doableTasks) {
+            if (doableTask.task < 0) continue;
+            int start = startingTime(instance, doableTask, finishingTimeMachines, jobCurrentTime);
+            if (start > min) continue;
+            int remaining = jobsLastDone == null ? 0 : computeRemainingTime(doableTask.job, instance, jobsLastDone);
+            long key = rule.key(instance, doableTask.job, doableTask.task, start, remaining);
+            if (key < minKey) {
+                chosenTask = doableTask;
+                min = start;
+                minKey = key;
             }
         }
-        // Add all tasks with the same minimum starting time
-        // Works because time is indexed with doableTasks !
-        for (ESTReturn estReturn : time) {
-            if (estReturn.startingTime == min){
-                filteredTasks.add(estReturn.task);
+        return new ESTReturn(chosenTask, min);
+    }
+
+    /**
+     * Selection of the next job to dispatch according to the priority, on primitive arrays describing the
+     * partial solution. Ties are broken as in the list-based methods above: the job with the lowest index wins.
+     *
+     * @param instance      The current instance
+     * @param nextTask      Index of the next task of each job (numTasks if the job is finished)
+     * @param remainingWork Sum of the durations of the tasks of each job that are not scheduled yet
+     * @param machineFree   Finishing time of each machine
+     * @param jobReady      Finishing time of the last scheduled task of each job
+     * @return The job whose next task should be scheduled, or -1 if all jobs are finished
+     */
+    public int selectJob(Instance instance, int[] nextTask, int[] remainingWork, int[] machineFree, int[] jobReady) {
+        int best = -1;
+        long bestKey = Long.MAX_VALUE;
+        for (int job = 0; job < instance.numJobs; job++) {
+            int task = nextTask[job];
+            if (task >= instance.numTasks) continue;
+            int start = priority.isEst() ? Math.max(jobReady[job], machineFree[instance.machine(job, task)]) : 0;
+            long key = priority.key(instance, job, task, start, remainingWork[job]);
+            if (best == -1 || key < bestKey) {
+                best = job;
+                bestKey = key;
             }
         }
-        Task chosenTask =  LRPTTask(instance, filteredTasks,jobsLastDone);
-        ESTReturn result = new ESTReturn(chosenTask,min);
-        return result;
+        return best;
     }
 
     protected boolean noJobLeft(int jobs, ArrayList<Task> doableTasks) {
@@ -296,86 +299,57 @@ public class GreedySolver implements Solver {
         return result;
     }
 
+    /**
+     * Builds a solution by dispatching, at each step, the next task of the job preferred by the priority rule.
+     * The list-based selection methods above describe the rules; the construction itself is performed by a
+     * {@link Dispatcher}, that keeps the candidate jobs in a heap.
+     */
     @Override
-    public Optional<Schedule> solve(Instance instance, long deadline) {
-        // Solution is represented by a resource order object
-        ESTReturn res;
-        Task currentTask = new Task(0, 0);
-        ResourceOrder ro = new ResourceOrder(instance);
-        Optional<Schedule> schedule;
-        int machine;
-        // Set of tasks -> 1 task for each job
-        ArrayList<Task> doableTasks = InitDoableTasks(instance);
-        ArrayList<Task> lastDoneTasks = InitLastDoneTasks(instance);
-
-        ArrayList<Integer> finishingTimeMachines = new ArrayList<>();
-        ArrayList<Integer> jobCurrentTime = new ArrayList<>();
+    public Optional<Schedule> solve(Instance instance, RunControl control) {
+        Optional<Schedule> schedule = new Dispatcher(instance, this.priority).build().toSchedule();
+        schedule.ifPresent(s -> control.reportSolution(s.makespan(), () -> s));
+        return schedule;
+    }
 
-        InitESTArrays(instance,finishingTimeMachines,jobCurrentTime);
 
-        int calc;
+    /**
+     * All possible priorities for the greedy solver.
+     */
+    public enum Priority {
+        SPT, LPT, SRPT, LRPT, EST_SPT, EST_LRPT;
 
-        boolean noRemainingJobs = false;
+        /** True for the rules that first select the tasks that can start the earliest. */
+        public boolean isEst() {
+            return this == EST_SPT || this == EST_LRPT;
+        }
 
-        while (!noRemainingJobs) {
-            // Choisir tache appropriée
-            switch (this.priority) {
+        /**
+         * Priority of a task, the lower the better. The start time of the task (for the EST rules) is in the high
+         * bits and the key of the rule in the low bits, so that priorities compare as longs.
+         *
+         * @param start         Earliest start time of the task, ignored by the rules that are not EST
+         * @param remainingWork Sum of the durations of the tasks of the job that are not scheduled yet, this one included
+         */
+        public long key(Instance instance, int job, int task, int start, int remainingWork) {
+            int key;
+            switch (this) {
                 case SPT:
-                    currentTask = SPTTask(instance, doableTasks);
-                    break;
-                case LRPT:
-                    currentTask = LRPTTask(instance, doableTasks, lastDoneTasks);
+                case EST_SPT:
+                    key = instance.duration(job, task);
                     break;
                 case LPT:
-                    currentTask = LPTTask(instance, doableTasks);
+                    key = -instance.duration(job, task);
                     break;
                 case SRPT:
-                    currentTask = SRPTTask(instance, doableTasks, lastDoneTasks);
-                    break;
-                case EST_SPT:
-                    res = EST_SPTTask(instance, doableTasks, finishingTimeMachines, jobCurrentTime);
-                    //System.out.println("res :" + res);
-                    currentTask = res.getTask();
-                    // Update finishing time for the job
-                    calc = res.getStartingTime() + instance.duration(currentTask);
-                    jobCurrentTime.set(currentTask.job, calc);
-                    // Update finishing time for the machine
-                    finishingTimeMachines.set(instance.machine(currentTask), calc);
-                    break;
-                case EST_LRPT:
-                    res = EST_LRPTTask(instance, doableTasks, lastDoneTasks, finishingTimeMachines, jobCurrentTime);
-                    currentTask = res.getTask();
-                    // Update finishing time for the job
-                    calc = res.getStartingTime() + instance.duration(currentTask);
-                    jobCurrentTime.set(currentTask.job, calc);
-                    // Update finishing time for the machine
-                    finishingTimeMachines.set(instance.machine(currentTask), calc);
+                    // jobs without remaining work come last
+                    key = remainingWork > 0 ? remainingWork : Integer.MAX_VALUE;
                     break;
                 default:
-                    // lots of things, hopefully not
-
+                    key = -remainingWork;
             }
-
-            // Assigner cette tache correspondante dans le ressource order
-            machine = instance.machine(currentTask);
-            ro.addTaskToMachine(machine, currentTask);
-
-            // mettre a jour l'ensemble des taches faisables
-            UpdateDoableTasks(instance, doableTasks, currentTask);
-            // Mettre a jour les taches deja faites
-            lastDoneTasks.set(currentTask.job, currentTask);
-
-            noRemainingJobs = noJobLeft(instance.numJobs, doableTasks);
+            long high = isEst() ? (long) start << 32 : 0;
+            // flipping the sign bit maps the signed order of the keys to the unsigned order of the low bits
+            return high | ((key ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
         }
-
-        return ro.toSchedule();
-    }
-
-
-    /**
-     * All possible priorities for the greedy solver.
-     */
-    public enum Priority {
-        SPT, LPT, SRPT, LRPT, EST_SPT, EST_LRPT
     }
 }
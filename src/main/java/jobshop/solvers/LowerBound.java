@@ -0,0 +1,63 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+
+/** Lower bounds on the optimal makespan of an instance, computed without any search.
+ *
+ * <ul>
+ *     <li>job bound: the largest total duration of a job,</li>
+ *     <li>machine bound: the largest load of a machine, plus the smallest head (total duration of the previous tasks
+ *     of the job) and the smallest tail (total duration of the next tasks of the job) of its tasks,</li>
+ *     <li>one-machine bound: the largest makespan of the Jackson preemptive schedule of a machine, where each task
+ *     is released at its head and must be followed by its tail. It solves the preemptive relaxation of the
+ *     one-machine problem exactly, so it is never below the machine bound.</li>
+ * </ul>
+ * A solution whose makespan equals {@link #value()} is optimal, which lets solvers stop as soon as they find one
+ * (see {@link Solver#solve(Instance, long)}) and lets {@link jobshop.Main} report a proven gap for every instance.
+ */
+public final class LowerBound {
+
+    public final int jobBound;
+    public final int machineBound;
+    public final int oneMachineBound;
+
+    private LowerBound(int jobBound, int machineBound, int oneMachineBound) {
+        this.jobBound = jobBound;
+        this.machineBound = machineBound;
+        this.oneMachineBound = oneMachineBound;
+    }
+
+    /** Computes the bounds of an instance, in O(numMachines * numJobs^2) time. */
+    public static LowerBound of(Instance instance) {
+        // without machine arcs, heads and tails are the durations of the previous and next tasks of the job
+        DisjunctiveGraph graph = new DisjunctiveGraph(instance, 0);
+        graph.computeHeadsAndTails();
+        int machineBound = 0;
+        int oneMachineBound = 0;
+        for (int m = 0; m < instance.numMachines; m++) {
+            machineBound = Math.max(machineBound, graph.machineBound(m));
+            oneMachineBound = Math.max(oneMachineBound, graph.jacksonPreemptiveSchedule(m));
+        }
+        return new LowerBound(graph.makespan, machineBound, oneMachineBound);
+    }
+
+    /** Lower bound given by the run control, or the one of the instance if the run control has none. */
+    static int value(Instance instance, RunControl control) {
+        return control.lowerBound() >= 0 ? control.lowerBound() : of(instance).value();
+    }
+
+    /** Best of the three bounds. */
+    public int value() {
+        return Math.max(jobBound, oneMachineBound);
+    }
+
+    /** Proven relative gap of a makespan, between 0 (optimal) and 1, as in {@link OptimalityCertificate#gap()}. */
+    public double gap(int makespan) {
+        return makespan == 0 ? 0 : (double) Math.max(0, makespan - value()) / makespan;
+    }
+
+    @Override
+    public String toString() {
+        return "LowerBound{job=" + jobBound + ", machine=" + machineBound + ", oneMachine=" + oneMachineBound + "}";
+    }
+}
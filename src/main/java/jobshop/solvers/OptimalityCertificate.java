@@ -0,0 +1,102 @@
+package jobshop.solvers;
+
+import jobshop.BestKnownResults;
+import jobshop.Instance;
+import jobshop.encodings.Schedule;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/** Result of an exact search: a schedule with a proven lower bound on the optimal makespan.
+ *
+ * The schedule is optimal when its makespan reaches the lower bound, otherwise the remaining gap is reported.
+ * A certificate can be written to a text file and read back, and checked against the instance (the schedule must
+ * be valid and have the announced makespan) and against {@link BestKnownResults} (a proven lower bound cannot be
+ * above the best known makespan).
+ *
+ * File format: a header line "instance makespan lowerBound nodes elapsedMillis", then one line per job with the
+ * start times of its tasks.
+ */
+public final class OptimalityCertificate {
+
+    public final String instanceName;
+    public final Schedule schedule;
+    public final int makespan;
+    public final int lowerBound;
+    /** Number of nodes explored by the search. */
+    public final long nodes;
+    public final long elapsedMillis;
+
+    public OptimalityCertificate(String instanceName, Schedule schedule, int lowerBound, long nodes, long elapsedMillis) {
+        this.instanceName = instanceName;
+        this.schedule = schedule;
+        this.makespan = schedule.makespan();
+        this.lowerBound = lowerBound;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /** True if the makespan of the schedule is proven optimal. */
+    public boolean isOptimal() {
+        return lowerBound >= makespan;
+    }
+
+    /** Relative gap between the makespan and the lower bound (0 for an optimal schedule). */
+    public double gap() {
+        return makespan == 0 ? 0 : (double) (makespan - lowerBound) / makespan;
+    }
+
+    /** True if the schedule is a valid solution with the announced makespan, and the bound does not exceed it. */
+    public boolean verify() {
+        return schedule.isValid() && schedule.makespan() == makespan && lowerBound <= makespan;
+    }
+
+    /** True if the certificate does not contradict the best known result of the instance (if there is one). */
+    public boolean isConsistentWithBestKnown() {
+        return !BestKnownResults.isKnown(instanceName) || lowerBound <= BestKnownResults.of(instanceName);
+    }
+
+    /** Writes the certificate to a text file. */
+    public void write(Path path) throws IOException {
+        Instance instance = schedule.instance;
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write(instanceName + " " + makespan + " " + lowerBound + " " + nodes + " " + elapsedMillis + "\n");
+            for (int job = 0; job < instance.numJobs; job++) {
+                StringBuilder line = new StringBuilder();
+                for (int task = 0; task < instance.numTasks; task++) {
+                    if (task > 0) line.append(' ');
+                    line.append(schedule.startTime(job, task));
+                }
+                writer.write(line.append('\n').toString());
+            }
+        }
+    }
+
+    /** Reads a certificate written by {@link #write(Path)} for the given instance.
+     * The announced makespan is checked by {@link #verify()}. */
+    public static OptimalityCertificate read(Path path, Instance instance) throws IOException {
+        List<String> lines = Files.readAllLines(path);
+        String[] header = lines.get(0).trim().split("\\s+");
+        Schedule schedule = new Schedule(instance);
+        for (int job = 0; job < instance.numJobs; job++) {
+            String[] times = lines.get(job + 1).trim().split("\\s+");
+            for (int task = 0; task < instance.numTasks; task++) {
+                schedule.setStartTime(job, task, Integer.parseInt(times[task]));
+            }
+        }
+        OptimalityCertificate certificate = new OptimalityCertificate(header[0], schedule,
+                Integer.parseInt(header[2]), Long.parseLong(header[3]), Long.parseLong(header[4]));
+        if (certificate.makespan != Integer.parseInt(header[1]))
+            throw new RuntimeException("Announced makespan " + header[1] + " differs from the schedule: " + certificate.makespan);
+        return certificate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: makespan %d, lower bound %d (%s), %d nodes in %d ms", instanceName, makespan,
+                lowerBound, isOptimal() ? "optimal" : String.format("gap %.2f%%", 100 * gap()), nodes, elapsedMillis);
+    }
+}
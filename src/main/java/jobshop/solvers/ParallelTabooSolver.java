@@ -0,0 +1,139 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Schedule;
+import jobshop.solvers.neighborhood.IncrementalEvaluator;
+import jobshop.solvers.neighborhood.Nowicki;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Multi-start taboo search running independent trajectories in parallel.
+ *
+ * Each thread runs its own trajectories, with its own taboo memory, evaluator and random generator:
+ * <ul>
+ *     <li>the first trajectory of a thread starts from a greedy solution (EST_LRPT, EST_SPT, then randomized
+ *     greedy solutions for the other threads),</li>
+ *     <li>a trajectory ends after a given number of iterations without improvement, and the next one starts from
+ *     the best solution found by all threads, perturbed with a few random swaps of the Nowicki neighborhood.</li>
+ * </ul>
+ * Improvements are published to a lock-free {@link SharedIncumbent}, whose solution is returned once all threads
+ * have stopped (deadline, budget, target or cancellation of the run control).
+ */
+public class ParallelTabooSolver implements Solver {
+
+    /** Number of trajectories run in parallel. */
+    final int numThreads;
+
+    /** Number of consecutive iterations without improvement after which a trajectory is restarted. */
+    final int maxNonImproving;
+
+    /** Maximal number of trajectories run by each thread. */
+    final int maxRestarts;
+
+    /** Seed of the random generators of the threads. */
+    final long seed;
+
+    /** Taboo search run by all threads. Its base solver provides the start of the first thread. */
+    final TabooSolver taboo;
+
+    final Nowicki neighborhood = new Nowicki();
+
+    public ParallelTabooSolver(int numThreads, int tabooTime, int maxNonImproving, int maxRestarts, long seed) {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + numThreads);
+        this.numThreads = numThreads;
+        this.maxNonImproving = maxNonImproving;
+        this.maxRestarts = maxRestarts;
+        this.seed = seed;
+        this.taboo = new TabooSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT), Integer.MAX_VALUE, tabooTime);
+    }
+
+    @Override
+    public int numThreads() {
+        return numThreads;
+    }
+
+    @Override
+    public Optional<Schedule> solve(Instance instance, RunControl control) {
+        SharedIncumbent incumbent = new SharedIncumbent();
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> trajectories = new ArrayList<>();
+            for (int thread = 0; thread < numThreads; thread++) {
+                final int id = thread;
+                trajectories.add(pool.submit(() -> run(id, instance, control, incumbent)));
+            }
+            for (Future<?> trajectory : trajectories) {
+                trajectory.get();
+            }
+        } catch (InterruptedException e) {
+            control.cancel();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Taboo trajectory failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        SharedIncumbent.Solution best = incumbent.get();
+        return best == null ? Optional.empty() : best.order.toSchedule();
+    }
+
+    /** Solver providing the initial solution of the given thread. */
+    private Solver startingSolver(int thread) {
+        switch (thread) {
+            case 0: return taboo.baseSolver;
+            case 1: return new GreedySolver(GreedySolver.Priority.EST_SPT);
+            default: return new GreedyRandomSolver(thread % 2 == 0 ? GreedySolver.Priority.EST_LRPT : GreedySolver.Priority.EST_SPT, 1, seed + thread);
+        }
+    }
+
+    /** Runs the successive trajectories of one thread. */
+    private void run(int thread, Instance instance, RunControl control, SharedIncumbent incumbent) {
+        SplittableRandom random = new SplittableRandom(seed + thread);
+        Optional<Schedule> initial = startingSolver(thread).solve(instance, control);
+        if (initial.isEmpty())
+            return;
+
+        ResourceOrder current = new ResourceOrder(initial.get());
+        ResourceOrder best = current.copy();
+        IncrementalEvaluator evaluator = new IncrementalEvaluator(instance);
+        TabooMemory tabooMemory = new TabooMemory(instance);
+
+        for (int restart = 0; restart < maxRestarts; restart++) {
+            taboo.search(current, evaluator, tabooMemory, best, control, Integer.MAX_VALUE, maxNonImproving, incumbent);
+            if (control.shouldStop())
+                break;
+
+            // restart from the best solution of all threads, with a few random swaps
+            current.copyFrom(incumbent.get().order);
+            tabooMemory.clear();
+            perturb(neighborhood, evaluator, current, 2 + random.nextInt(instance.numJobs / 2 + 1), random);
+        }
+    }
+
+    /** Applies a number of random swaps of the Nowicki neighborhood on the resource order. */
+    static void perturb(Nowicki neighborhood, IncrementalEvaluator evaluator, ResourceOrder order, int numSwaps, SplittableRandom random) {
+        if (!evaluator.reset(order))
+            return;
+        for (int i = 0; i < numSwaps; i++) {
+            List<Nowicki.Swap> swaps = neighborhood.allSwaps(evaluator);
+            if (swaps.isEmpty())
+                return;
+            Nowicki.Swap swap = swaps.get(random.nextInt(swaps.size()));
+            if (!evaluator.apply(swap)) {
+                // possible cycle with operations of zero duration: undo the swap
+                swap.revertOn(order);
+                evaluator.reset(order);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Schedule;
+import jobshop.solvers.neighborhood.IncrementalEvaluator;
+import jobshop.solvers.neighborhood.Nowicki;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** Portfolio of solvers racing on the same instance, one thread per solver.
+ *
+ * All members share the run control of the portfolio, hence its deadline and budgets, and publish their solutions
+ * to a {@link SharedIncumbent}. When a member returns before the run is over:
+ * <ul>
+ *     <li>a local search (see {@link Solver#withBaseSolver(Solver)}) is restarted from the best solution of the
+ *     portfolio, perturbed with a few random swaps of the Nowicki neighborhood, until the run stops,</li>
+ *     <li>any other member leaves its thread idle.</li>
+ * </ul>
+ * As soon as a solution reaches the {@link LowerBound} of the instance, or a {@link BranchAndBoundSolver} member
+ * proves its solution optimal, the run control is cancelled so that all members return.
+ *
+ * Members that use several threads themselves compete with the portfolio for the processors, so single-threaded
+ * members are preferable.
+ */
+public class PortfolioSolver implements Solver {
+
+    /** Solvers run in parallel. */
+    final List<Solver> members;
+
+    /** Seed of the random generators perturbing the restarts. */
+    final long seed;
+
+    /** Makespan of the first solution of each member in the last run. */
+    private volatile int[] lastMemberMakespans;
+
+    public PortfolioSolver(List<Solver> members, long seed) {
+        if (members.isEmpty())
+            throw new IllegalArgumentException("A portfolio needs at least one solver");
+        this.members = new ArrayList<>(members);
+        this.seed = seed;
+    }
+
+    /** Portfolio of a taboo search, a randomized descent and a GRASP with descent, each on one thread, whose random
+     * generators use the given seed. */
+    public PortfolioSolver(long seed) {
+        this(List.of(
+                new TabooSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT), 5000, 20),
+                new DescentSolver(new Nowicki(), new GreedyRandomSolver(GreedySolver.Priority.LRPT, 20, seed)),
+                new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT, 3, 1, true, seed)), seed);
+    }
+
+    /** Default portfolio with the seed 0. */
+    public PortfolioSolver() {
+        this(0);
+    }
+
+    /** Portfolio of the solvers with the given names and seed (see {@link Solver#getSolver(String, long)}). */
+    public static PortfolioSolver of(List<String> names, long seed) {
+        List<Solver> members = new ArrayList<>();
+        for (String name : names) {
+            members.add(Solver.getSolver(name, seed));
+        }
+        return new PortfolioSolver(members, seed);
+    }
+
+    /** All members run at the same time, each with its own threads. */
+    @Override
+    public int numThreads() {
+        int threads = 0;
+        for (Solver member : members) {
+            threads += member.numThreads();
+        }
+        return threads;
+    }
+
+    /** Makespan of the first solution of each member in the last run (-1 if it found none). */
+    public int[] lastMemberMakespans() {
+        return lastMemberMakespans == null ? null : lastMemberMakespans.clone();
+    }
+
+    @Override
+    public Optional<Schedule> solve(Instance instance, RunControl control) {
+        SharedIncumbent incumbent = new SharedIncumbent();
+        int lowerBound = LowerBound.value(instance, control);
+        int[] memberMakespans = new int[members.size()];
+        ExecutorService pool = Executors.newFixedThreadPool(members.size());
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int member = 0; member < members.size(); member++) {
+                final int id = member;
+                runs.add(pool.submit(() -> run(id, instance, control, incumbent, lowerBound, memberMakespans)));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } catch (InterruptedException e) {
+            control.cancel();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            control.cancel();
+            throw new RuntimeException("Portfolio member failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        lastMemberMakespans = memberMakespans;
+
+        SharedIncumbent.Solution best = incumbent.get();
+        return best == null ? Optional.empty() : best.order.toSchedule();
+    }
+
+    /** Runs a member, then its restarts from the incumbent until the run stops. */
+    private void run(int member, Instance instance, RunControl control, SharedIncumbent incumbent, int lowerBound,
+                     int[] memberMakespans) {
+        Solver solver = members.get(member);
+        Optional<Schedule> result = solver.solve(instance, control);
+        memberMakespans[member] = result.map(Schedule::makespan).orElse(-1);
+        offer(result, control, incumbent, lowerBound);
+        if (solver instanceof BranchAndBoundSolver) {
+            OptimalityCertificate certificate = ((BranchAndBoundSolver) solver).lastCertificate();
+            if (certificate != null && certificate.isOptimal())
+                control.cancel();
+        }
+
+        Optional<Solver> restart = solver.withBaseSolver(new IncumbentStart(incumbent, instance, seed + member));
+        if (restart.isEmpty() || result.isEmpty())
+            return;
+        while (!control.shouldStop()) {
+            offer(restart.get().solve(instance, control), control, incumbent, lowerBound);
+        }
+    }
+
+    /** Publishes the result of a member, and cancels the run if it reaches the lower bound. */
+    private static void offer(Optional<Schedule> result, RunControl control, SharedIncumbent incumbent, int lowerBound) {
+        if (result.isEmpty())
+            return;
+        int makespan = result.get().makespan();
+        if (makespan < incumbent.makespan() && incumbent.offer(new ResourceOrder(result.get()), makespan)) {
+            control.reportSolution(makespan, result::get);
+            if (makespan <= lowerBound)
+                control.cancel();
+        }
+    }
+
+    /** Starting solver of the restarts of a member: the incumbent of the portfolio with a few random swaps. */
+    private static final class IncumbentStart implements Solver {
+        private final SharedIncumbent incumbent;
+        private final IncrementalEvaluator evaluator;
+        private final Nowicki neighborhood = new Nowicki();
+        private final SplittableRandom random;
+
+        IncumbentStart(SharedIncumbent incumbent, Instance instance, long seed) {
+            this.incumbent = incumbent;
+            this.evaluator = new IncrementalEvaluator(instance);
+            this.random = new SplittableRandom(seed);
+        }
+
+        @Override
+        public Optional<Schedule> solve(Instance instance, RunControl control) {
+            SharedIncumbent.Solution best = incumbent.get();
+            if (best == null)
+                return Optional.empty();
+            ResourceOrder start = best.order.copy();
+            ParallelTabooSolver.perturb(neighborhood, evaluator, start, 2 + random.nextInt(instance.numJobs / 2 + 1), random);
+            return start.toSchedule();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package jobshop.solvers;
+
+import jobshop.encodings.Schedule;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/** Conditions under which a solver must stop and return the best solution it has found.
+ *
+ * A run control combines
+ * <ul>
+ *     <li>a wall-clock deadline, measured with {@link System#nanoTime()},</li>
+ *     <li>a budget on the number of iterations (moves of a local search, constructions of a randomized heuristic, ...),</li>
+ *     <li>a budget on the number of evaluated solutions,</li>
+ *     <li>a target makespan: the run can stop as soon as a solution at least as good is found,</li>
+ *     <li>an external cancellation, that can be requested from any thread.</li>
+ * </ul>
+ * Solvers call {@link #shouldStop()} in their main loop, and report their work with {@link #countIteration()},
+ * {@link #countEvaluations(long)} and {@link #reportSolution(int, Supplier)}. Whatever the reason for stopping, a
+ * solver must return the best solution it has, even if the deadline was already met when it was called.
+ *
+ * A {@link SolutionListener} can be attached to the run, before it starts, to receive the improving solutions as
+ * soon as they are reported: this is the anytime use of {@link Solver#solve(jobshop.Instance, RunControl)}. Without
+ * listener, reporting a solution only compares its makespan with the target.
+ *
+ * A run control can be shared by several threads working on the same run.
+ */
+public final class RunControl {
+
+    /** Reasons for which a run can stop. */
+    public enum StopReason {
+        DEADLINE, ITERATIONS, EVALUATIONS, TARGET, CANCELLED
+    }
+
+    /** Value of the budgets and target when they are not set. */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    /** Creation time of the run control, with respect to {@link System#nanoTime()}. */
+    private final long startNanos = System.nanoTime();
+
+    /** Absolute deadline, with respect to {@link System#nanoTime()}. */
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+
+    private long maxIterations = UNLIMITED;
+    private long maxEvaluations = UNLIMITED;
+    private int targetMakespan = -1;
+    private int lowerBound = -1;
+
+    private final AtomicLong iterations = new AtomicLong();
+    private final AtomicLong evaluations = new AtomicLong();
+
+    private volatile SolutionListener listener = null;
+    /** Best makespan reported to the listener: a solution is only built if it lowers this makespan. */
+    private final AtomicInteger publishedMakespan = new AtomicInteger(Integer.MAX_VALUE);
+    /** Makespan of the last solution passed to the listener. Guarded by the lock of the run control. */
+    private int deliveredMakespan = Integer.MAX_VALUE;
+
+    /** Reason of the stop once it is known, null while the run should continue. */
+    private volatile StopReason stopReason = null;
+
+    private RunControl(long deadlineNanos, boolean hasDeadline) {
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = hasDeadline;
+    }
+
+    /** A run control without any deadline or budget: the run only stops when cancelled or when the target is met. */
+    public static RunControl unlimited() {
+        return new RunControl(0, false);
+    }
+
+    /** A run control with a deadline expressed, as in {@link Solver#solve(jobshop.Instance, long)}, as an absolute
+     * time in milliseconds comparable with {@link System#currentTimeMillis()}. */
+    public static RunControl withDeadline(long deadlineMillis) {
+        return withTimeout(deadlineMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** A run control whose deadline is the given duration from now. */
+    public static RunControl withTimeout(long duration, TimeUnit unit) {
+        return new RunControl(System.nanoTime() + unit.toNanos(duration), true);
+    }
+
+    /** Sets the maximal number of iterations of the run. */
+    public RunControl withMaxIterations(long maxIterations) {
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
+    /** Sets the maximal number of solutions that can be evaluated during the run. */
+    public RunControl withMaxEvaluations(long maxEvaluations) {
+        this.maxEvaluations = maxEvaluations;
+        return this;
+    }
+
+    /** Sets a makespan that is considered good enough to stop the run. */
+    public RunControl withTargetMakespan(int targetMakespan) {
+        this.targetMakespan = targetMakespan;
+        return this;
+    }
+
+    /** Sets a lower bound on the optimal makespan of the instance. The run stops as soon as a solution reaches it,
+     * and the solvers that need the bound use this one instead of computing it again. */
+    public RunControl withLowerBound(int lowerBound) {
+        this.lowerBound = lowerBound;
+        this.targetMakespan = Math.max(targetMakespan, lowerBound);
+        return this;
+    }
+
+    /** Lower bound set with {@link #withLowerBound(int)}, -1 if none. */
+    public int lowerBound() {
+        return lowerBound;
+    }
+
+    /** Sets the listener receiving the improving solutions of the run.
+     *
+     * @throws IllegalStateException If the run has already started.
+     */
+    public RunControl withListener(SolutionListener listener) {
+        if(iterations.get() > 0 || evaluations.get() > 0 || publishedMakespan.get() != Integer.MAX_VALUE)
+            throw new IllegalStateException("The listener must be set before the run starts");
+        this.listener = listener;
+        return this;
+    }
+
+    /** Requests the run to stop as soon as possible. Can be called from any thread. */
+    public void cancel() {
+        stop(StopReason.CANCELLED);
+    }
+
+    /** Records the first reason for stopping. */
+    private void stop(StopReason reason) {
+        if(stopReason == null)
+            stopReason = reason;
+    }
+
+    /** Records that one more iteration was started. */
+    public void countIteration() {
+        if(iterations.incrementAndGet() >= maxIterations)
+            stop(StopReason.ITERATIONS);
+    }
+
+    /** Records that the given number of solutions were evaluated. */
+    public void countEvaluations(long count) {
+        if(evaluations.addAndGet(count) >= maxEvaluations)
+            stop(StopReason.EVALUATIONS);
+    }
+
+    /** Reports the makespan of a solution that was found during the run. */
+    public void reportMakespan(int makespan) {
+        if(makespan <= targetMakespan)
+            stop(StopReason.TARGET);
+    }
+
+    /** Reports a solution that was found during the run.
+     *
+     * @param makespan Makespan of the solution.
+     * @param solution Builds the schedule of the solution. It is only called, on the calling thread and before this
+     *                 method returns, if there is a listener and the solution improves the last reported one.
+     */
+    public void reportSolution(int makespan, Supplier<Schedule> solution) {
+        SolutionListener listener = this.listener;
+        if(listener != null && lowerPublishedMakespan(makespan)) {
+            SolutionListener.Improvement improvement =
+                    new SolutionListener.Improvement(makespan, System.nanoTime() - startNanos, solution.get());
+            // only the handoff is done under the lock, so that the listener sees strictly decreasing makespans even
+            // when a better solution found concurrently is built faster
+            synchronized (this) {
+                if(makespan < deliveredMakespan) {
+                    deliveredMakespan = makespan;
+                    listener.onImprovement(improvement);
+                }
+            }
+        }
+        reportMakespan(makespan);
+    }
+
+    /** Records a makespan as the best one reported to the listener, if it is. */
+    private boolean lowerPublishedMakespan(int makespan) {
+        int current;
+        do {
+            current = publishedMakespan.get();
+            if(makespan >= current)
+                return false;
+        } while(!publishedMakespan.compareAndSet(current, makespan));
+        return true;
+    }
+
+    /** True if the solver should stop and return its best solution. */
+    public boolean shouldStop() {
+        if(stopReason != null)
+            return true;
+        if(hasDeadline && System.nanoTime() - deadlineNanos >= 0) {
+            stop(StopReason.DEADLINE);
+            return true;
+        }
+        return false;
+    }
+
+    /** Reason for which the run stopped, or null if it should continue. */
+    public StopReason stopReason() {
+        return stopReason;
+    }
+
+    /** Remaining time before the deadline, in nanoseconds (negative if it is passed, {@link #UNLIMITED} if none). */
+    public long remainingNanos() {
+        return hasDeadline ? deadlineNanos - System.nanoTime() : UNLIMITED;
+    }
+
+    /** Number of iterations performed so far. */
+    public long iterations() {
+        return iterations.get();
+    }
+
+    /** Number of evaluations performed so far. */
+    public long evaluations() {
+        return evaluations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RunControl{iterations=" + iterations() + ", evaluations=" + evaluations() + ", stop=" + stopReason + "}";
+    }
+}
@@ -0,0 +1,58 @@
+package jobshop.solvers;
+
+import jobshop.encodings.ResourceOrder;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Best solution found so far by several threads working on the same instance.
+ *
+ * The incumbent is an immutable snapshot (a private copy of the resource order with its makespan) held in an
+ * {@link AtomicReference}. Threads publish improvements with {@link #offer(ResourceOrder, int)}, that replaces the
+ * snapshot with a compare-and-set and never blocks. Reading the incumbent is a single volatile read.
+ */
+public final class SharedIncumbent {
+
+    /** Immutable snapshot of a solution. The resource order must not be modified. */
+    public static final class Solution {
+        public final ResourceOrder order;
+        public final int makespan;
+
+        private Solution(ResourceOrder order, int makespan) {
+            this.order = order;
+            this.makespan = makespan;
+        }
+    }
+
+    private final AtomicReference<Solution> best = new AtomicReference<>();
+
+    /** Publishes a solution if it is strictly better than the current incumbent.
+     * The resource order is copied, so the caller can keep modifying it.
+     *
+     * @return True if the solution became the new incumbent.
+     */
+    public boolean offer(ResourceOrder order, int makespan) {
+        Solution current = best.get();
+        if (current != null && current.makespan <= makespan) {
+            return false;
+        }
+        Solution candidate = new Solution(order.copy(), makespan);
+        while (current == null || makespan < current.makespan) {
+            if (best.compareAndSet(current, candidate)) {
+                return true;
+            }
+            current = best.get();
+        }
+        return false;
+    }
+
+    /** Current incumbent, or null if no solution was published yet. */
+    public Solution get() {
+        return best.get();
+    }
+
+    /** Makespan of the current incumbent, or {@link Integer#MAX_VALUE} if there is none. */
+    public int makespan() {
+        Solution current = best.get();
+        return current == null ? Integer.MAX_VALUE : current.makespan;
+    }
+}
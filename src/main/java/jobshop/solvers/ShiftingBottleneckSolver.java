@@ -0,0 +1,373 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Schedule;
+import jobshop.encodings.Task;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/** Shifting bottleneck heuristic.
+ *
+ * Machines are sequenced one at a time. At each step, the graph of the job precedences and of the sequences of the
+ * machines already sequenced gives a head (release date) and a tail to every task. Each machine that is not
+ * sequenced yet defines a one-machine problem: sequence its tasks so as to minimize the largest completion time
+ * plus tail. The machine with the largest optimal value is the bottleneck, and its sequence is added to the graph.
+ * The machines sequenced before are then re-optimized one at a time, each one being removed from the graph and
+ * sequenced again as a one-machine problem, a new sequence being kept only if it does not increase the makespan
+ * of the graph.
+ *
+ * One-machine problems are solved with Carlier's branch and bound, whose nodes are Schrage schedules, with a limit
+ * on the number of nodes. When the run control says to stop, the remaining machines are sequenced with Schrage's
+ * heuristic only and without re-optimization, so that a solution is always returned.
+ */
+public class ShiftingBottleneckSolver implements Solver {
+
+    /** Maximal number of nodes of Carlier's branch and bound for a one-machine problem. */
+    final int maxCarlierNodes;
+
+    /** Number of passes of re-optimization over the sequenced machines after each step. */
+    final int reoptimizationPasses;
+
+    /**
+     * @param maxCarlierNodes Maximal number of nodes of the branch and bound of each one-machine problem.
+     * @param reoptimizationPasses Number of passes of re-optimization over the sequenced machines after each step.
+     */
+    public ShiftingBottleneckSolver(int maxCarlierNodes, int reoptimizationPasses) {
+        this.maxCarlierNodes = maxCarlierNodes;
+        this.reoptimizationPasses = reoptimizationPasses;
+    }
+
+    /** Shifting bottleneck with 200 nodes per one-machine problem and one pass of re-optimization. */
+    public ShiftingBottleneckSolver() {
+        this(200, 1);
+    }
+
+    @Override
+    public Optional<Schedule> solve(Instance instance, RunControl control) {
+        Graph graph = new Graph(instance);
+        OneMachine oneMachine = new OneMachine(instance.numJobs);
+        int[] sequence = new int[instance.numJobs];
+        int[] bestSequence = new int[instance.numJobs];
+        int[] previousSequence = new int[instance.numJobs];
+
+        for (int step = 0; step < instance.numMachines; step++) {
+            boolean fast = control.shouldStop();
+            control.countIteration();
+            graph.computeHeadsAndTails();
+
+            // bottleneck: the unsequenced machine with the largest one-machine value
+            int bottleneck = -1;
+            int bottleneckValue = -1;
+            for (int m = 0; m < instance.numMachines; m++) {
+                if (graph.isSequenced(m))
+                    continue;
+                int value = graph.solve(m, oneMachine, fast ? 0 : maxCarlierNodes, sequence);
+                if (value > bottleneckValue) {
+                    bottleneck = m;
+                    bottleneckValue = value;
+                    System.arraycopy(sequence, 0, bestSequence, 0, sequence.length);
+                }
+            }
+            graph.sequence(bottleneck, bestSequence);
+            if (!graph.computeHeadsAndTails()) {
+                // the release dates and tails modified by the branch and bound allowed a cycle, which the Schrage
+                // schedule of the original problem cannot create
+                graph.unsequence(bottleneck);
+                graph.computeHeadsAndTails();
+                graph.solve(bottleneck, oneMachine, 0, bestSequence);
+                graph.sequence(bottleneck, bestSequence);
+            }
+
+            for (int pass = 0; pass < reoptimizationPasses && !fast; pass++) {
+                for (int m = 0; m < instance.numMachines; m++) {
+                    if (m == bottleneck || !graph.isSequenced(m))
+                        continue;
+                    graph.computeHeadsAndTails();
+                    int makespan = graph.makespan();
+                    graph.copySequence(m, previousSequence);
+                    graph.unsequence(m);
+                    graph.computeHeadsAndTails();
+                    graph.solve(m, oneMachine, maxCarlierNodes, sequence);
+                    graph.sequence(m, sequence);
+                    if (!graph.computeHeadsAndTails() || graph.makespan() > makespan) {
+                        graph.unsequence(m);
+                        graph.sequence(m, previousSequence);
+                    }
+                }
+            }
+        }
+
+        ResourceOrder order = new ResourceOrder(instance);
+        for (int m = 0; m < instance.numMachines; m++) {
+            graph.copySequence(m, sequence);
+            for (int job : sequence) {
+                order.addTaskToMachine(m, new Task(job, instance.task_with_machine(job, m)));
+            }
+        }
+        Optional<Schedule> schedule = order.toSchedule();
+        schedule.ifPresent(s -> control.reportSolution(s.makespan(), () -> s));
+        return schedule;
+    }
+
+    /** Disjunctive graph of the job precedences and of the sequences of the sequenced machines. */
+    private static final class Graph {
+        final Instance instance;
+        final int numJobs;
+        final boolean[] sequenced;
+        /** Machine predecessor and successor of each operation, -1 if there is none or its machine is not sequenced. */
+        final int[] machinePrevious, machineNext;
+        /** Heads, tails and topological order of the graph. */
+        final DisjunctiveGraph graph;
+
+        Graph(Instance instance) {
+            this.instance = instance;
+            this.numJobs = instance.numJobs;
+            int n = instance.numOperations;
+            this.sequenced = new boolean[instance.numMachines];
+            this.machinePrevious = new int[n];
+            this.machineNext = new int[n];
+            Arrays.fill(machinePrevious, -1);
+            Arrays.fill(machineNext, -1);
+            this.graph = new DisjunctiveGraph(instance, n);
+        }
+
+        boolean isSequenced(int machine) {
+            return sequenced[machine];
+        }
+
+        /** Length of the longest path of the graph, as of the last computation of heads and tails. */
+        int makespan() {
+            return graph.makespan;
+        }
+
+        /** Heads and tails of all operations.
+         *
+         * @return False if the graph has a cycle (heads and tails are then meaningless).
+         */
+        boolean computeHeadsAndTails() {
+            graph.clearArcs();
+            for (int op = 0; op < instance.numOperations; op++) {
+                if (machineNext[op] != -1)
+                    graph.addArc(op, machineNext[op]);
+            }
+            return graph.computeHeadsAndTails();
+        }
+
+        /** Solves the one-machine problem of an unsequenced machine with the current heads and tails.
+         *
+         * @param sequence Filled with the jobs in the order of the best sequence found.
+         * @return The largest completion time plus tail of this sequence.
+         */
+        int solve(int machine, OneMachine oneMachine, int maxNodes, int[] sequence) {
+            for (int job = 0; job < numJobs; job++) {
+                int op = instance.operationOnMachine(job, machine);
+                oneMachine.release[job] = graph.head[op];
+                oneMachine.duration[job] = instance.operationDuration(op);
+                oneMachine.tail[job] = graph.tail[op];
+                // ties are broken by the topological order, so that zero durations cannot create cycles
+                oneMachine.rank[job] = graph.rank[op];
+            }
+            return oneMachine.solve(maxNodes, sequence);
+        }
+
+        /** Adds the sequence of a machine (a permutation of the jobs) to the graph. */
+        void sequence(int machine, int[] jobs) {
+            sequenced[machine] = true;
+            for (int k = 0; k + 1 < jobs.length; k++) {
+                int op = instance.operationOnMachine(jobs[k], machine);
+                int next = instance.operationOnMachine(jobs[k + 1], machine);
+                machineNext[op] = next;
+                machinePrevious[next] = op;
+            }
+        }
+
+        /** Removes the sequence of a machine from the graph. */
+        void unsequence(int machine) {
+            sequenced[machine] = false;
+            for (int job = 0; job < numJobs; job++) {
+                int op = instance.operationOnMachine(job, machine);
+                machineNext[op] = -1;
+                machinePrevious[op] = -1;
+            }
+        }
+
+        /** Copies the sequence of a sequenced machine. */
+        void copySequence(int machine, int[] jobs) {
+            int op = -1;
+            for (int job = 0; job < numJobs; job++) {
+                int candidate = instance.operationOnMachine(job, machine);
+                if (machinePrevious[candidate] == -1)
+                    op = candidate;
+            }
+            for (int k = 0; k < numJobs; k++) {
+                jobs[k] = instance.operationJob(op);
+                op = machineNext[op];
+            }
+        }
+    }
+
+    /** One-machine problem: sequence jobs with release dates, durations and tails so as to minimize the largest
+     * completion time plus tail, with Carlier's branch and bound. The buffers are reused between problems. */
+    static final class OneMachine {
+        final int n;
+        final int[] release, duration, tail, rank;
+        // Schrage schedule
+        final int[] byRelease;
+        final int[] heap;
+        final int[] order, completion;
+        final int[] best;
+        int bestValue;
+        int nodes;
+
+        OneMachine(int n) {
+            this.n = n;
+            this.release = new int[n];
+            this.duration = new int[n];
+            this.tail = new int[n];
+            this.rank = new int[n];
+            this.byRelease = new int[n];
+            this.heap = new int[n];
+            this.order = new int[n];
+            this.completion = new int[n];
+            this.best = new int[n];
+        }
+
+        /** Best sequence found with at most maxNodes nodes of branch and bound (Schrage's heuristic if 0).
+         * Release dates and tails are restored before returning. */
+        int solve(int maxNodes, int[] sequence) {
+            bestValue = Integer.MAX_VALUE;
+            nodes = 0;
+            branch(Math.max(1, maxNodes));
+            System.arraycopy(best, 0, sequence, 0, n);
+            return bestValue;
+        }
+
+        private void branch(int maxNodes) {
+            nodes++;
+            int value = schrage();
+            if (value < bestValue) {
+                bestValue = value;
+                System.arraycopy(order, 0, best, 0, n);
+            }
+            if (nodes >= maxNodes)
+                return;
+
+            // critical path: job b reaching the value, and the start a of its block
+            int b = -1;
+            for (int k = n - 1; k >= 0 && b == -1; k--) {
+                if (completion[order[k]] + tail[order[k]] == value)
+                    b = k;
+            }
+            // a: first job of the block of b, the machine being busy without interruption from a to b
+            int a = b;
+            while (a > 0 && completion[order[a - 1]] == completion[order[a]] - duration[order[a]])
+                a--;
+            // c: last job of the block with a tail smaller than the one of b
+            int c = -1;
+            for (int k = b - 1; k >= a && c == -1; k--) {
+                if (tail[order[k]] < tail[order[b]])
+                    c = k;
+            }
+            if (c == -1)
+                return; // the Schrage schedule is optimal
+
+            int minRelease = Integer.MAX_VALUE, minTail = Integer.MAX_VALUE, sum = 0;
+            for (int k = c + 1; k <= b; k++) {
+                int job = order[k];
+                minRelease = Math.min(minRelease, release[job]);
+                minTail = Math.min(minTail, tail[job]);
+                sum += duration[job];
+            }
+            int jobC = order[c];
+
+            // job c after the jobs of the critical set
+            int savedRelease = release[jobC];
+            release[jobC] = Math.max(release[jobC], minRelease + sum);
+            if (Math.max(minRelease + sum + minTail, release[jobC] + duration[jobC] + tail[jobC]) < bestValue)
+                branch(maxNodes);
+            release[jobC] = savedRelease;
+            if (nodes >= maxNodes)
+                return;
+
+            // job c before the jobs of the critical set
+            int savedTail = tail[jobC];
+            tail[jobC] = Math.max(tail[jobC], minTail + sum);
+            if (Math.max(minRelease + sum + minTail, release[jobC] + duration[jobC] + tail[jobC]) < bestValue)
+                branch(maxNodes);
+            tail[jobC] = savedTail;
+        }
+
+        /** Schrage schedule: whenever the machine is free, the released job with the largest tail is sequenced.
+         *
+         * @return The largest completion time plus tail.
+         */
+        private int schrage() {
+            for (int job = 0; job < n; job++) {
+                int i = job;
+                while (i > 0 && before(job, byRelease[i - 1], true)) {
+                    byRelease[i] = byRelease[i - 1];
+                    i--;
+                }
+                byRelease[i] = job;
+            }
+            int heapSize = 0;
+            int next = 0;
+            int time = 0;
+            int value = 0;
+            for (int k = 0; k < n; k++) {
+                if (heapSize == 0)
+                    time = Math.max(time, release[byRelease[next]]);
+                while (next < n && release[byRelease[next]] <= time)
+                    heapSize = push(heapSize, byRelease[next++]);
+                int job = heap[0];
+                heap[0] = heap[--heapSize];
+                siftDown(0, heapSize);
+                time += duration[job];
+                order[k] = job;
+                completion[job] = time;
+                value = Math.max(value, time + tail[job]);
+            }
+            return value;
+        }
+
+        /** Order of the jobs by release date, or by decreasing tail for the heap, ties broken by rank. */
+        private boolean before(int a, int b, boolean byReleaseDate) {
+            if (byReleaseDate ? release[a] != release[b] : tail[a] != tail[b])
+                return byReleaseDate ? release[a] < release[b] : tail[a] > tail[b];
+            return rank[a] < rank[b];
+        }
+
+        private int push(int heapSize, int job) {
+            int i = heapSize++;
+            heap[i] = job;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(heap[i], heap[parent], false))
+                    break;
+                int tmp = heap[i];
+                heap[i] = heap[parent];
+                heap[parent] = tmp;
+                i = parent;
+            }
+            return heapSize;
+        }
+
+        private void siftDown(int i, int heapSize) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize)
+                    return;
+                if (child + 1 < heapSize && before(heap[child + 1], heap[child], false))
+                    child++;
+                if (!before(heap[child], heap[i], false))
+                    return;
+                int tmp = heap[i];
+                heap[i] = heap[child];
+                heap[child] = tmp;
+                i = child;
+            }
+        }
+    }
+}
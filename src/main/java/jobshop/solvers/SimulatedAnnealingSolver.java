@@ -0,0 +1,214 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Schedule;
+import jobshop.solvers.neighborhood.IncrementalEvaluator;
+import jobshop.solvers.neighborhood.MoveEvaluator;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+/** Simulated annealing on the exchanges of adjacent tasks of the critical path.
+ *
+ * Each step draws a random exchange of two adjacent tasks of a critical block: with probability one half one of
+ * the swaps of the Nowicki neighborhood (first or last two tasks of a block), and otherwise any adjacent pair of a
+ * block. The move is accepted with the Metropolis criterion: a neighbor whose makespan exceeds the current one by
+ * delta is accepted if delta &lt;= -T.ln(u), with u uniform in (0, 1]. Drawing u before the evaluation gives an
+ * acceptance threshold, so that most rejected moves are discarded from their constant time estimate
+ * (see {@link MoveEvaluator#evaluate(int, int, int, int)}). Only accepted moves update the heads and tails.
+ *
+ * The temperature is multiplied by the cooling rate after each level of numOperations steps. When the best
+ * solution was not improved for a number of levels, the search restarts from it at the initial temperature.
+ * The deadline is checked after each level, the other stop conditions after each step.
+ */
+public class SimulatedAnnealingSolver implements Solver {
+
+    /** Probability that a step draws a swap of the Nowicki neighborhood rather than any adjacent critical pair. */
+    static final double NOWICKI_PROBABILITY = 0.5;
+
+    final Solver baseSolver;
+
+    /** Temperature at the start and after each reheating. If not positive, it is computed from random moves of the
+     * initial solution, so that a move of average degradation is accepted with probability one half. */
+    final double initialTemperature;
+
+    /** Factor applied to the temperature after each level. */
+    final double coolingRate;
+
+    /** Number of levels without improvement of the best solution after which the temperature is reset. */
+    final int reheatAfter;
+
+    final long seed;
+
+    /**
+     * @param baseSolver Solver providing the initial solution.
+     * @param initialTemperature Initial temperature, or 0 to compute it from the initial solution.
+     * @param coolingRate Factor in (0, 1) applied to the temperature after each level.
+     * @param reheatAfter Number of levels without improvement after which the temperature is reset.
+     * @param seed Seed of the random generator.
+     */
+    public SimulatedAnnealingSolver(Solver baseSolver, double initialTemperature, double coolingRate, int reheatAfter, long seed) {
+        if (coolingRate <= 0 || coolingRate >= 1)
+            throw new IllegalArgumentException("The cooling rate must be in (0, 1): " + coolingRate);
+        this.baseSolver = baseSolver;
+        this.initialTemperature = initialTemperature;
+        this.coolingRate = coolingRate;
+        this.reheatAfter = reheatAfter;
+        this.seed = seed;
+    }
+
+    /** Simulated annealing with an automatic initial temperature. */
+    public SimulatedAnnealingSolver(Solver baseSolver, long seed) {
+        this(baseSolver, 0, 0.95, 50, seed);
+    }
+
+    @Override
+    public Optional<Solver> withBaseSolver(Solver baseSolver) {
+        return Optional.of(new SimulatedAnnealingSolver(baseSolver, initialTemperature, coolingRate, reheatAfter, seed));
+    }
+
+    @Override
+    public int numThreads() {
+        return baseSolver == null ? 1 : baseSolver.numThreads();
+    }
+
+    @Override
+    public Optional<Schedule> solve(Instance instance, RunControl control) {
+        Optional<Schedule> initial = baseSolver.solve(instance, control);
+        if (initial.isEmpty()) {
+            return initial;
+        }
+
+        ResourceOrder current = new ResourceOrder(initial.get());
+        ResourceOrder best = current.copy();
+        IncrementalEvaluator evaluator = new IncrementalEvaluator(instance);
+        MoveEvaluator moves = new MoveEvaluator(evaluator);
+        CriticalArcs arcs = new CriticalArcs(instance);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        evaluator.reset(current);
+        arcs.update(evaluator);
+        int currentMakespan = evaluator.makespan();
+        int bestMakespan = currentMakespan;
+        control.reportSolution(bestMakespan, () -> current.toSchedule().get());
+
+        double startTemperature = initialTemperature > 0 ? initialTemperature : sampleTemperature(moves, arcs, random);
+        double temperature = startTemperature;
+        int levelsWithoutImprovement = 0;
+        int stepsPerLevel = Math.max(1, instance.numOperations);
+
+        while (!control.shouldStop() && arcs.numArcs > 0) {
+            boolean improved = false;
+            int steps = 0;
+            // budgets and target are checked at each step, the deadline after each level
+            for (; steps < stepsPerLevel && arcs.numArcs > 0 && control.stopReason() == null; steps++) {
+                control.countIteration();
+                int arc = arcs.draw(random);
+                int op1 = evaluator.criticalPathOperation(arc);
+                int op2 = evaluator.criticalPathOperation(arc + 1);
+                int machine = instance.operationMachine(op1);
+                int t1 = evaluator.machinePosition(op1);
+                int t2 = evaluator.machinePosition(op2);
+
+                // Metropolis criterion, expressed as a threshold on the makespan of the neighbor
+                double slack = -temperature * Math.log(1 - random.nextDouble());
+                int threshold = (int) Math.min(Integer.MAX_VALUE - 1, Math.floor(currentMakespan + slack));
+                int makespan = moves.evaluate(machine, Math.min(t1, t2), Math.max(t1, t2), threshold + 1);
+                if (makespan > threshold)
+                    continue;
+
+                current.swapTasks(machine, Math.min(t1, t2), Math.max(t1, t2));
+                evaluator.reset(current);
+                arcs.update(evaluator);
+                currentMakespan = makespan;
+                if (currentMakespan < bestMakespan) {
+                    bestMakespan = currentMakespan;
+                    best.copyFrom(current);
+                    control.reportSolution(bestMakespan, () -> best.toSchedule().get());
+                    improved = true;
+                }
+            }
+            control.countEvaluations(steps);
+
+            temperature *= coolingRate;
+            levelsWithoutImprovement = improved ? 0 : levelsWithoutImprovement + 1;
+            if (levelsWithoutImprovement >= reheatAfter) {
+                // reheating, from the best solution
+                current.copyFrom(best);
+                evaluator.reset(current);
+                arcs.update(evaluator);
+                currentMakespan = bestMakespan;
+                temperature = startTemperature;
+                levelsWithoutImprovement = 0;
+            }
+        }
+
+        return best.toSchedule();
+    }
+
+    /** Temperature at which the average degradation of random moves of the current solution is accepted with
+     * probability one half. */
+    private static double sampleTemperature(MoveEvaluator moves, CriticalArcs arcs, SplittableRandom random) {
+        IncrementalEvaluator evaluator = moves.evaluator;
+        Instance instance = evaluator.instance;
+        long degradation = 0;
+        int degrading = 0;
+        for (int i = 0; i < 100 && arcs.numArcs > 0; i++) {
+            int arc = arcs.draw(random);
+            int op1 = evaluator.criticalPathOperation(arc);
+            int op2 = evaluator.criticalPathOperation(arc + 1);
+            int t1 = evaluator.machinePosition(op1);
+            int t2 = evaluator.machinePosition(op2);
+            int makespan = moves.evaluate(instance.operationMachine(op1), Math.min(t1, t2), Math.max(t1, t2), Integer.MAX_VALUE);
+            if (makespan != IncrementalEvaluator.INFEASIBLE && makespan > evaluator.makespan()) {
+                degradation += makespan - evaluator.makespan();
+                degrading++;
+            }
+        }
+        return degrading == 0 ? 1 : (double) degradation / degrading / Math.log(2);
+    }
+
+    /** Adjacent pairs of tasks of the critical path that are on the same machine, identified by the index of their
+     * first task on the path. Pairs at the beginning or the end of a block are also listed apart. */
+    private static final class CriticalArcs {
+        final int[] arcs;
+        final int[] blockArcs;
+        int numArcs;
+        int numBlockArcs;
+
+        CriticalArcs(Instance instance) {
+            this.arcs = new int[instance.numOperations];
+            this.blockArcs = new int[instance.numOperations];
+        }
+
+        /** Lists the arcs of the critical path of the current solution of the evaluator. */
+        void update(IncrementalEvaluator evaluator) {
+            Instance instance = evaluator.instance;
+            numArcs = 0;
+            numBlockArcs = 0;
+            int length = evaluator.criticalPathLength();
+            for (int i = 0; i + 1 < length; i++) {
+                if (!sameMachine(evaluator, instance, i))
+                    continue;
+                arcs[numArcs++] = i;
+                boolean firstOfBlock = i == 0 || !sameMachine(evaluator, instance, i - 1);
+                boolean lastOfBlock = i + 2 == length || !sameMachine(evaluator, instance, i + 1);
+                if (firstOfBlock || lastOfBlock)
+                    blockArcs[numBlockArcs++] = i;
+            }
+        }
+
+        private static boolean sameMachine(IncrementalEvaluator evaluator, Instance instance, int i) {
+            return instance.operationMachine(evaluator.criticalPathOperation(i))
+                    == instance.operationMachine(evaluator.criticalPathOperation(i + 1));
+        }
+
+        /** Draws an arc, that must exist. */
+        int draw(SplittableRandom random) {
+            if (random.nextDouble() < NOWICKI_PROBABILITY)
+                return blockArcs[random.nextInt(numBlockArcs)];
+            return arcs[random.nextInt(numArcs)];
+        }
+    }
+}
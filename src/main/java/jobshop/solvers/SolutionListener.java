@@ -0,0 +1,39 @@
+package jobshop.solvers;
+
+import jobshop.encodings.Schedule;
+
+/** Receiver of the improving solutions of a run, as soon as they are found (anytime use of a solver).
+ *
+ * A listener is attached to a run with {@link RunControl#withListener(SolutionListener)}, before the run starts.
+ * Solvers report their improvements to the run control, that builds the schedule and calls the listener only when
+ * the makespan is strictly better than the last published one, so the listener receives a strictly decreasing
+ * sequence of makespans.
+ *
+ * The listener is called on the thread of the solver that found the solution, while this thread waits: it must
+ * return quickly, and hand the solution over to another thread if it has more work to do (see
+ * {@link SolutionPublisher}).
+ */
+@FunctionalInterface
+public interface SolutionListener {
+
+    /** An improving solution of a run. */
+    final class Improvement {
+        public final int makespan;
+        /** Time since the creation of the run control, in nanoseconds. */
+        public final long elapsedNanos;
+        public final Schedule schedule;
+
+        public Improvement(int makespan, long elapsedNanos, Schedule schedule) {
+            this.makespan = makespan;
+            this.elapsedNanos = elapsedNanos;
+            this.schedule = schedule;
+        }
+
+        @Override
+        public String toString() {
+            return "Improvement{makespan=" + makespan + ", elapsed=" + elapsedNanos / 1_000_000 + "ms}";
+        }
+    }
+
+    void onImprovement(Improvement improvement);
+}
@@ -0,0 +1,172 @@
+package jobshop.solvers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** {@link Flow.Publisher} of the improving solutions of a run.
+ *
+ * The publisher is the {@link SolutionListener} of the run: the solver threads only store the improvement and
+ * schedule its delivery on an executor, so a slow subscriber never slows the search down. Each subscriber has a
+ * buffer of a single improvement: when it cannot keep up, an improvement that was not delivered yet is replaced by
+ * the next one. Since improvements have decreasing makespans, a subscriber always receives the best solution found
+ * so far, whatever its demand, and the memory used does not depend on the number of improvements.
+ *
+ * Subscribers are completed when the publisher is closed, once they received the last improvement:
+ * <pre>
+ *     try (SolutionPublisher publisher = new SolutionPublisher()) {
+ *         publisher.subscribe(subscriber);
+ *         solver.solve(instance, control.withListener(publisher));
+ *     }
+ * </pre>
+ */
+public final class SolutionPublisher implements Flow.Publisher<SolutionListener.Improvement>, SolutionListener, AutoCloseable {
+
+    private final Executor executor;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    /** Last improvement, delivered to the subscribers that arrive during the run. */
+    private volatile Improvement last = null;
+    private volatile boolean closed = false;
+
+    /** Publisher delivering the improvements on the given executor. */
+    public SolutionPublisher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /** Publisher delivering the improvements on the common fork/join pool. */
+    public SolutionPublisher() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Improvement> subscriber) {
+        if (subscriber == null)
+            throw new NullPointerException("Null subscriber");
+        Subscription subscription = new Subscription(subscriber);
+        subscriptions.add(subscription);
+        Improvement current = last;
+        if (current != null)
+            subscription.offer(current);
+        subscription.signal();
+    }
+
+    @Override
+    public void onImprovement(Improvement improvement) {
+        if (closed)
+            return;
+        last = improvement;
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(improvement);
+            subscription.signal();
+        }
+    }
+
+    /** Completes all subscribers after the delivery of the last improvement. Later improvements are ignored. */
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    /** Subscription of one subscriber. All signals to the subscriber are sent by {@link #run()}, that is never
+     * executed by two threads at the same time. */
+    private final class Subscription implements Flow.Subscription, Runnable {
+        final Flow.Subscriber<? super Improvement> subscriber;
+        /** Improvement not delivered yet, if any. */
+        final AtomicReference<Improvement> latest = new AtomicReference<>();
+        final AtomicLong requested = new AtomicLong();
+        /** Number of signals since the last drain: the drain is scheduled when it goes from 0 to 1. */
+        final AtomicInteger pending = new AtomicInteger();
+        volatile boolean cancelled = false;
+        volatile IllegalArgumentException invalidRequest = null;
+        // only accessed by the drain
+        boolean subscribed = false;
+        boolean terminated = false;
+        int deliveredMakespan = Integer.MAX_VALUE;
+
+        Subscription(Flow.Subscriber<? super Improvement> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /** Stores an improvement for delivery, unless a better one is already waiting. */
+        void offer(Improvement improvement) {
+            Improvement current;
+            do {
+                current = latest.get();
+                if (current != null && current.makespan <= improvement.makespan)
+                    return;
+            } while (!latest.compareAndSet(current, improvement));
+        }
+
+        void signal() {
+            if (pending.getAndIncrement() == 0)
+                executor.execute(this);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (!subscribed) {
+                subscribed = true;
+                subscriber.onSubscribe(this);
+            }
+            if (terminated || cancelled)
+                return;
+            if (invalidRequest != null) {
+                terminate();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+            // read before the improvement, so that the last improvement is delivered before the completion
+            boolean complete = closed;
+            if (requested.get() > 0) {
+                Improvement improvement = latest.getAndSet(null);
+                // a subscriber arriving during the run may be offered an improvement it already received
+                if (improvement != null && improvement.makespan < deliveredMakespan) {
+                    deliveredMakespan = improvement.makespan;
+                    requested.decrementAndGet();
+                    subscriber.onNext(improvement);
+                }
+            }
+            if (complete && latest.get() == null && !cancelled) {
+                terminate();
+                subscriber.onComplete();
+            }
+        }
+
+        private void terminate() {
+            terminated = true;
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -3,23 +3,72 @@ package jobshop.solvers;
 import jobshop.Instance;
 import jobshop.encodings.Schedule;
 import jobshop.solvers.neighborhood.Nowicki;
+import jobshop.solvers.neighborhood.ParallelNeighborhoodEvaluator;
 
+import java.util.Arrays;
 import java.util.Optional;
 
 /** Common interface that must implemented by all solvers. */
 public interface Solver {
 
-    /** Look for a solution until blocked or a deadline has been met.
+    /** Look for a solution until blocked or a deadline has been met. The run also stops as soon as a solution
+     * reaches the {@link LowerBound} of the instance, since it is then optimal.
+     *
+     * Blocking use of {@link #solve(Instance, RunControl)}: the run has no listener, and only its result is returned.
      *
      * @param instance Jobshop instance that should be solved.
      * @param deadline Absolute time at which the solver should have returned a solution.
      *                 This time is in milliseconds and can be compared with System.currentTimeMilliseconds()
      * @return An optional schedule that will be non empty if a solution was found.
      */
-    Optional<Schedule> solve(Instance instance, long deadline);
+    default Optional<Schedule> solve(Instance instance, long deadline) {
+        return solve(instance, deadline, LowerBound.of(instance));
+    }
+
+    /** Same as {@link #solve(Instance, long)}, with the lower bound of the instance computed by the caller, for
+     * instance once for all the runs on the same instance.
+     *
+     * @param lowerBound Lower bound of the instance, the run stops as soon as a solution reaches it.
+     */
+    default Optional<Schedule> solve(Instance instance, long deadline, LowerBound lowerBound) {
+        return solve(instance, RunControl.withDeadline(deadline).withLowerBound(lowerBound.value()));
+    }
+
+    /** Look for a solution until blocked or one of the stop conditions of the run control is met, and report each
+     * improving solution to the run control as soon as it is found.
+     *
+     * This is the anytime use of a solver: when a {@link SolutionListener} is attached to the run control (see
+     * {@link RunControl#withListener(SolutionListener)}), for instance a {@link SolutionPublisher}, it receives the
+     * improving solutions on the threads of the solver, with strictly decreasing makespans. The last one is the
+     * returned solution.
+     *
+     * @param instance Jobshop instance that should be solved.
+     * @param control Deadline, budgets, target, cancellation and listener of the run. The solver checks it regularly
+     *                and returns the best solution it has (if any) as soon as it says to stop.
+     * @return An optional schedule that will be non empty if a solution was found.
+     */
+    Optional<Schedule> solve(Instance instance, RunControl control);
+
+    /** Same solver, improving the solutions of another solver instead of those of its own base solver.
+     * Empty for the solvers that do not start from an initial solution.
+     * Used by {@link PortfolioSolver} to restart local searches from the best solution of the portfolio. */
+    default Optional<Solver> withBaseSolver(Solver baseSolver) {
+        return Optional.empty();
+    }
+
+    /** Number of threads used by a run of the solver, including the calling thread. Used by {@link jobshop.Main}
+     * to avoid running more threads than there are processors. */
+    default int numThreads() {
+        return 1;
+    }
 
     /** Static factory method to create a new solver based on its name. */
     static Solver getSolver(String name) {
+        return getSolver(name, 0);
+    }
+
+    /** Static factory method to create a new solver based on its name, whose random generators use the given seed. */
+    static Solver getSolver(String name, long seed) {
         switch (name) {
             case "basic": return new BasicSolver();
             case "spt": return new GreedySolver(GreedySolver.Priority.SPT);
@@ -28,12 +77,22 @@ public interface Solver {
             case "srpt": return new GreedySolver(GreedySolver.Priority.SRPT);
             case "est_spt": return new GreedySolver(GreedySolver.Priority.EST_SPT);
             case "est_lrpt": return new GreedySolver(GreedySolver.Priority.EST_LRPT);
-            case "random_spt": return new GreedyRandomSolver(GreedySolver.Priority.SPT,20);
-            case "random_lrpt": return new GreedyRandomSolver(GreedySolver.Priority.LRPT,20);
-            case "random_lpt": return new GreedyRandomSolver(GreedySolver.Priority.LPT,20);
-            case "random_srpt": return new GreedyRandomSolver(GreedySolver.Priority.SRPT,20);
-            case "random_est_spt": return new GreedyRandomSolver(GreedySolver.Priority.EST_SPT,20);
-            case "random_est_lrpt": return new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT,20);
+            case "gt_spt": return new GifflerThompsonSolver(GreedySolver.Priority.SPT);
+            case "gt_lrpt": return new GifflerThompsonSolver(GreedySolver.Priority.LRPT);
+            case "gt_lpt": return new GifflerThompsonSolver(GreedySolver.Priority.LPT);
+            case "gt_srpt": return new GifflerThompsonSolver(GreedySolver.Priority.SRPT);
+            case "gt_est_spt": return new GifflerThompsonSolver(GreedySolver.Priority.EST_SPT);
+            case "gt_est_lrpt": return new GifflerThompsonSolver(GreedySolver.Priority.EST_LRPT);
+            case "random_spt": return new GreedyRandomSolver(GreedySolver.Priority.SPT,20,seed);
+            case "random_lrpt": return new GreedyRandomSolver(GreedySolver.Priority.LRPT,20,seed);
+            case "random_lpt": return new GreedyRandomSolver(GreedySolver.Priority.LPT,20,seed);
+            case "random_srpt": return new GreedyRandomSolver(GreedySolver.Priority.SRPT,20,seed);
+            case "random_est_spt": return new GreedyRandomSolver(GreedySolver.Priority.EST_SPT,20,seed);
+            case "random_est_lrpt": return new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT,20,seed);
+            case "grasp_est_spt": return new GreedyRandomSolver(GreedySolver.Priority.EST_SPT,3,Runtime.getRuntime().availableProcessors(),false,seed);
+            case "grasp_est_lrpt": return new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT,3,Runtime.getRuntime().availableProcessors(),false,seed);
+            case "grasp_descent_est_spt": return new GreedyRandomSolver(GreedySolver.Priority.EST_SPT,3,Runtime.getRuntime().availableProcessors(),true,seed);
+            case "grasp_descent_est_lrpt": return new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT,3,Runtime.getRuntime().availableProcessors(),true,seed);
             case "taboo_basic": return new TabooSolver(new BasicSolver(),5000,5);
             case "taboo_spt": return new TabooSolver(new GreedySolver(GreedySolver.Priority.SPT),5000,20);
             case "taboo_lrpt": return new TabooSolver(new GreedySolver(GreedySolver.Priority.LRPT) ,5000,20);
@@ -41,12 +100,12 @@ public interface Solver {
             case "taboo_srpt": return new TabooSolver(new GreedySolver(GreedySolver.Priority.SRPT),5000,20);
             case "taboo_est_spt": return new TabooSolver(new GreedySolver(GreedySolver.Priority.EST_SPT),5000,20);
             case "taboo_est_lrpt": return new TabooSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT),5000,20);
-            case "taboo_random_spt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.SPT,20),5000,20);
-            case "taboo_random_lrpt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.LRPT,20),5000,20);
-            case "taboo_random_lpt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.LPT,20),5000,20);
-            case "taboo_random_srpt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.SRPT,20),5000,20);
-            case "taboo_random_est_spt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.EST_SPT,20),5000,20);
-            case "taboo_random_est_lrpt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT,20),5000,20);
+            case "taboo_random_spt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.SPT,20,seed),5000,20);
+            case "taboo_random_lrpt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.LRPT,20,seed),5000,20);
+            case "taboo_random_lpt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.LPT,20,seed),5000,20);
+            case "taboo_random_srpt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.SRPT,20,seed),5000,20);
+            case "taboo_random_est_spt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.EST_SPT,20,seed),5000,20);
+            case "taboo_random_est_lrpt": return new TabooSolver(new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT,20,seed),5000,20);
             case "descent_basic": return new DescentSolver(new Nowicki(),new BasicSolver());
             case "descent_spt": return new DescentSolver(new Nowicki(),new GreedySolver(GreedySolver.Priority.SPT));
             case "descent_lrpt": return new DescentSolver(new Nowicki(),new GreedySolver(GreedySolver.Priority.LRPT));
@@ -54,13 +113,37 @@ public interface Solver {
             case "descent_srpt": return new DescentSolver(new Nowicki(), new GreedySolver(GreedySolver.Priority.SRPT));
             case "descent_est_spt": return new DescentSolver(new Nowicki(),new GreedySolver(GreedySolver.Priority.EST_SPT));
             case "descent_est_lrpt": return new DescentSolver(new Nowicki(),new GreedySolver(GreedySolver.Priority.EST_LRPT));
-            case "descent_random_spt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.SPT,20));
-            case "descent_random_lrpt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.LRPT,20));
-            case "descent_random_lpt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.LPT,20));
-            case "descent_random_srpt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.SRPT,20));
-            case "descent_random_est_spt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.EST_SPT,20));
-            case "descent_random_est_lrpt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT,20));
-            default: throw new RuntimeException("Unknown solver: "+ name);
+            case "descent_random_spt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.SPT,20,seed));
+            case "descent_random_lrpt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.LRPT,20,seed));
+            case "descent_random_lpt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.LPT,20,seed));
+            case "descent_random_srpt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.SRPT,20,seed));
+            case "descent_random_est_spt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.EST_SPT,20,seed));
+            case "descent_random_est_lrpt": return new DescentSolver(new Nowicki(),new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT,20,seed));
+            case "descent_gt_lrpt": return new DescentSolver(new Nowicki(),new GifflerThompsonSolver(GreedySolver.Priority.LRPT));
+            case "descent_gt_est_lrpt": return new DescentSolver(new Nowicki(),new GifflerThompsonSolver(GreedySolver.Priority.EST_LRPT));
+            case "taboo_gt_lrpt": return new TabooSolver(new GifflerThompsonSolver(GreedySolver.Priority.LRPT),5000,20);
+            case "taboo_gt_est_lrpt": return new TabooSolver(new GifflerThompsonSolver(GreedySolver.Priority.EST_LRPT),5000,20);
+            case "descent_first_est_lrpt": return new DescentSolver(new Nowicki(),new GreedySolver(GreedySolver.Priority.EST_LRPT),Integer.MAX_VALUE,true);
+            case "descent_fj_est_lrpt": return new DescentSolver(new Nowicki(),new GreedySolver(GreedySolver.Priority.EST_LRPT),ParallelNeighborhoodEvaluator.DEFAULT_SEQUENTIAL_THRESHOLD);
+            case "taboo_fj_est_lrpt": return new TabooSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT),5000,20,ParallelNeighborhoodEvaluator.DEFAULT_SEQUENTIAL_THRESHOLD);
+            case "sa_est_lrpt": return new SimulatedAnnealingSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT),seed);
+            case "sa_gt_lrpt": return new SimulatedAnnealingSolver(new GifflerThompsonSolver(GreedySolver.Priority.LRPT),seed);
+            case "genetic": return new GeneticSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT),100,2,0.2,true,Runtime.getRuntime().availableProcessors(),seed);
+            case "genetic_semi_active": return new GeneticSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT),100,2,0.2,false,Runtime.getRuntime().availableProcessors(),seed);
+            case "shifting_bottleneck": return new ShiftingBottleneckSolver();
+            case "descent_sb": return new DescentSolver(new Nowicki(),new ShiftingBottleneckSolver());
+            case "taboo_sb": return new TabooSolver(new ShiftingBottleneckSolver(),5000,20);
+            case "bnb": return new BranchAndBoundSolver();
+            case "portfolio": return new PortfolioSolver(seed);
+            case "taboo_parallel": return new ParallelTabooSolver(Runtime.getRuntime().availableProcessors(),20,1000,Integer.MAX_VALUE,seed);
+            default:
+                // taboo_parallel_N : parallel taboo search with N threads
+                if (name.matches("taboo_parallel_[0-9]+"))
+                    return new ParallelTabooSolver(Integer.parseInt(name.substring("taboo_parallel_".length())),20,1000,Integer.MAX_VALUE,seed);
+                // portfolio:NAME1,NAME2,... : the named solvers racing in parallel
+                if (name.startsWith("portfolio:"))
+                    return PortfolioSolver.of(Arrays.asList(name.substring("portfolio:".length()).split(",")),seed);
+                throw new RuntimeException("Unknown solver: "+ name);
         }
     }
 
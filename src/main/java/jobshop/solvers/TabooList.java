@@ -2,62 +2,160 @@ package jobshop.solvers;
 
 import jobshop.solvers.neighborhood.Nowicki;
 
-import java.util.*;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Taboo list keyed by swap positions, that does not need to know the instance.
+ * It is a thin adapter over {@link TabooMemory}, whose jobs are replaced by positions on the machine: a swap
+ * (machine, t1, t2), whose positions are sorted, is taboo until the iteration stored for the pair (t1, t2). The memory grows when
+ * a swap refers to a machine or a position it has no room for.
+ */
 public class TabooList {
 
-    public Hashtable<Nowicki.Swap, Integer> table;
+    /** View of the taboo swaps, mapped to the number of calls to {@link #update()} they remain taboo for.
+     * Writing to the view writes to the memory. */
+    public final Map<Nowicki.Swap, Integer> table = new Table();
 
-    public TabooList(){
-        this.table = new Hashtable<>();
-    }
+    private TabooMemory memory = new TabooMemory(1, 1);
 
     /**
-     * O(1) Insertion in hashtable without taking into account operations
+     * O(1) insertion of the reverse of a swap, that stays taboo until the given number of calls to {@link #update()}
+     * (until the next one if the time is not positive)
      * @param tabooTime Time limit for the taboo swap
      * @param swapToRevert Chosen swap to be reverted to create the taboo swap
      */
     public void addTaboo(int tabooTime, Nowicki.Swap swapToRevert){
-        // Generate reverse swap
-        int task1 = swapToRevert.t2;
-        int task2 = swapToRevert.t1;
-        Nowicki.Swap swapToInsert = new Nowicki.Swap(swapToRevert.machine,task1,task2);
-        this.table.put(swapToInsert,tabooTime);
+        ensureCapacity(swapToRevert);
+        // the reverse swap exchanges the same two positions, so it has the same key (t1 < t2)
+        memory.forbid(swapToRevert.machine, swapToRevert.t1, swapToRevert.t2, Math.max(1, tabooTime));
     }
 
     /**
-     * Updates the counter for every element in the table and removes it if under 0
+     * Moves to the next iteration, which expires the swaps that were taboo until then
      */
     public void update(){
-        // Iterate through each term and delete those with expired timers
-        Integer time;
-        Nowicki.Swap swap;
-        Hashtable<Nowicki.Swap, Integer> res = new Hashtable<>();
-        for (Map.Entry<Nowicki.Swap, Integer> e : this.table.entrySet()){
-            swap = e.getKey();
-            time = e.getValue();
-            if (time-1 > 0){
-                res.put(swap,time-1);
-            }
-        }
-        this.table = res;
+        memory.nextIteration();
     }
 
     /**
      *
-     * @param swap Swap to check if it is present in the taboo table
+     * @param swap Swap to check if it is present in the taboo list
      * @return True if present, False if not.
      */
     public boolean isPresent(Nowicki.Swap swap){
-        return this.table.containsKey(swap);
+        if (swap.machine >= memory.numMachines() || Math.max(swap.t1, swap.t2) >= memory.numJobs())
+            return false;
+        return memory.isTaboo(swap.machine, swap.t1, swap.t2);
     }
 
     /**
      *
-     * @return A set of all the keys in the hashtable
+     * @return A set of all the swaps that are currently taboo (backed by the list)
      */
     public Set<Nowicki.Swap> getSwaps() {
         return table.keySet();
     }
 
+    private void ensureCapacity(Nowicki.Swap swap) {
+        int numMachines = memory.numMachines();
+        int numPositions = memory.numJobs();
+        if (swap.machine < numMachines && Math.max(swap.t1, swap.t2) < numPositions)
+            return;
+        memory = memory.resized(Math.max(numMachines, swap.machine + 1), Math.max(numPositions, Math.max(swap.t1, swap.t2) + 1));
+    }
+
+    /** Map view of the memory. Lookups are O(1), iterations scan the whole memory. */
+    private final class Table extends AbstractMap<Nowicki.Swap, Integer> {
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof Nowicki.Swap) || !isPresent((Nowicki.Swap) key))
+                return null;
+            Nowicki.Swap swap = (Nowicki.Swap) key;
+            return memory.expiry(swap.machine, swap.t1, swap.t2) - memory.iteration();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Nowicki.Swap && isPresent((Nowicki.Swap) key);
+        }
+
+        @Override
+        public Integer put(Nowicki.Swap swap, Integer tabooTime) {
+            Integer previous = get(swap);
+            addTaboo(tabooTime, swap);
+            return previous;
+        }
+
+        @Override
+        public Integer remove(Object key) {
+            Integer previous = get(key);
+            if (previous != null) {
+                Nowicki.Swap swap = (Nowicki.Swap) key;
+                memory.forbid(swap.machine, swap.t1, swap.t2, 0);
+            }
+            return previous;
+        }
+
+        @Override
+        public Set<Entry<Nowicki.Swap, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Nowicki.Swap, Integer>> iterator() {
+                    List<Entry<Nowicki.Swap, Integer>> entries = new ArrayList<>();
+                    for (int m = 0; m < memory.numMachines(); m++) {
+                        for (int t1 = 0; t1 < memory.numJobs(); t1++) {
+                            for (int t2 = t1 + 1; t2 < memory.numJobs(); t2++) {
+                                if (memory.isTaboo(m, t1, t2))
+                                    entries.add(new SimpleImmutableEntry<>(new Nowicki.Swap(m, t1, t2),
+                                            memory.expiry(m, t1, t2) - memory.iteration()));
+                            }
+                        }
+                    }
+                    Iterator<Entry<Nowicki.Swap, Integer>> iterator = entries.iterator();
+                    return new Iterator<>() {
+                        Entry<Nowicki.Swap, Integer> last = null;
+
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Nowicki.Swap, Integer> next() {
+                            return last = iterator.next();
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null)
+                                throw new IllegalStateException();
+                            Table.this.remove(last.getKey());
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int size = 0;
+                    for (int m = 0; m < memory.numMachines(); m++) {
+                        for (int t1 = 0; t1 < memory.numJobs(); t1++) {
+                            for (int t2 = t1 + 1; t2 < memory.numJobs(); t2++) {
+                                if (memory.isTaboo(m, t1, t2))
+                                    size++;
+                            }
+                        }
+                    }
+                    return size;
+                }
+            };
+        }
+    }
 }
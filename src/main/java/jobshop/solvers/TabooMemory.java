@@ -0,0 +1,116 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.solvers.neighborhood.Nowicki;
+
+import java.util.Arrays;
+
+/** Taboo memory of a taboo search, keyed by pairs of operations of a machine.
+ *
+ * For every machine m and pair of jobs (a, b), the memory stores the iteration until which it is forbidden to
+ * place a before b on m. Entries are kept in a flat array indexed by <code>(m * numJobs + a) * numJobs + b</code>,
+ * so that checks and insertions are O(1) and never allocate. Entries expire by themselves when the iteration
+ * counter moves past them: no pass over the memory is needed between two iterations.
+ */
+public final class TabooMemory {
+
+    private final int numJobs;
+
+    /** Iteration from which a move is not taboo anymore. */
+    private final int[] expiry;
+
+    /** Current iteration. */
+    private int iteration = 0;
+
+    public TabooMemory(Instance instance) {
+        this(instance.numMachines, instance.numJobs);
+    }
+
+    /** Memory for the given number of machines and of jobs (or positions) per machine. */
+    TabooMemory(int numMachines, int numJobs) {
+        this.numJobs = numJobs;
+        this.expiry = new int[numMachines * numJobs * numJobs];
+    }
+
+    /** Number of jobs (or positions) per machine. */
+    int numJobs() {
+        return numJobs;
+    }
+
+    /** Number of machines. */
+    int numMachines() {
+        return expiry.length / (numJobs * numJobs);
+    }
+
+    /** Copy of this memory with room for more machines and jobs, at the same iteration. */
+    TabooMemory resized(int numMachines, int numJobs) {
+        TabooMemory larger = new TabooMemory(numMachines, numJobs);
+        larger.iteration = iteration;
+        for (int m = 0; m < numMachines(); m++) {
+            for (int a = 0; a < this.numJobs; a++) {
+                System.arraycopy(expiry, index(m, a, 0), larger.expiry, larger.index(m, a, 0), this.numJobs);
+            }
+        }
+        return larger;
+    }
+
+    /** Current iteration of the search. */
+    public int iteration() {
+        return iteration;
+    }
+
+    /** Moves to the next iteration, which expires the moves that were taboo until then. */
+    public void nextIteration() {
+        iteration++;
+    }
+
+    /** Forgets all taboo moves. */
+    public void clear() {
+        Arrays.fill(expiry, 0);
+        iteration = 0;
+    }
+
+    private int index(int machine, int firstJob, int secondJob) {
+        return (machine * numJobs + firstJob) * numJobs + secondJob;
+    }
+
+    /** Forbids placing firstJob before secondJob on the machine for the given number of iterations
+     * (including the current one). */
+    public void forbid(int machine, int firstJob, int secondJob, int tenure) {
+        expiry[index(machine, firstJob, secondJob)] = iteration + tenure;
+    }
+
+    /** True if placing firstJob before secondJob on the machine is currently taboo. */
+    public boolean isTaboo(int machine, int firstJob, int secondJob) {
+        return expiry[index(machine, firstJob, secondJob)] > iteration;
+    }
+
+    /** Iteration from which placing firstJob before secondJob on the machine is not taboo anymore. */
+    int expiry(int machine, int firstJob, int secondJob) {
+        return expiry[index(machine, firstJob, secondJob)];
+    }
+
+    /** Iteration from which applying the swap on the order is not taboo anymore. */
+    public int expiry(ResourceOrder order, Nowicki.Swap swap) {
+        int first = order.getJobOfMachine(swap.machine, swap.t1);
+        int second = order.getJobOfMachine(swap.machine, swap.t2);
+        return expiry[index(swap.machine, second, first)];
+    }
+
+    /** Makes taboo the reverse of a swap that was just applied on the order, i.e. the swap that would
+     * put its two jobs back in their previous order. */
+    public void addTaboo(ResourceOrder order, Nowicki.Swap appliedSwap, int tenure) {
+        int first = order.getJobOfMachine(appliedSwap.machine, appliedSwap.t1);
+        int second = order.getJobOfMachine(appliedSwap.machine, appliedSwap.t2);
+        forbid(appliedSwap.machine, second, first, tenure);
+    }
+
+    /** True if applying the swap on the order is taboo, i.e. if it would place the job at position t2 before the
+     * one at position t1 while this is forbidden. */
+    public boolean isTaboo(ResourceOrder order, Nowicki.Swap swap) {
+        int first = order.getJobOfMachine(swap.machine, swap.t1);
+        int second = order.getJobOfMachine(swap.machine, swap.t2);
+        return isTaboo(swap.machine, second, first);
+    }
+}
@@ -3,10 +3,13 @@ package jobshop.solvers;
 import jobshop.Instance;
 import jobshop.encodings.ResourceOrder;
 import jobshop.encodings.Schedule;
+import jobshop.solvers.neighborhood.IncrementalEvaluator;
 import jobshop.solvers.neighborhood.Nowicki;
+import jobshop.solvers.neighborhood.ParallelNeighborhoodEvaluator;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 public class TabooSolver implements Solver {
 
@@ -16,122 +19,142 @@ public class TabooSolver implements Solver {
 
     final int tabooTime;
 
+    /** Minimal number of neighbors for which they are evaluated in parallel on the common fork/join pool. */
+    final int parallelThreshold;
+
     final Nowicki neighborhood = new Nowicki();
 
     public TabooSolver(Solver solver, int maxIteration, int time){
+        this(solver, maxIteration, time, Integer.MAX_VALUE);
+    }
+
+    /** Taboo search whose neighborhoods are evaluated in parallel when they have at least parallelThreshold swaps. */
+    public TabooSolver(Solver solver, int maxIteration, int time, int parallelThreshold){
         this.baseSolver = solver;
         this.maxIteration = maxIteration;
         this.tabooTime = time;
+        this.parallelThreshold = parallelThreshold;
     }
 
     @Override
-    public  Optional<Schedule> solve(Instance instance, long deadline){
+    public Optional<Solver> withBaseSolver(Solver baseSolver) {
+        return Optional.of(new TabooSolver(baseSolver, maxIteration, tabooTime, parallelThreshold));
+    }
 
-        long start = System.currentTimeMillis();
-        long end;
-        Optional<Schedule> current = baseSolver.solve(instance,deadline);
-        assert current.isPresent();
+    @Override
+    public int numThreads() {
+        // the neighborhoods are evaluated on the common pool, with the help of the calling thread
+        int own = parallelThreshold == Integer.MAX_VALUE ? 1 : ForkJoinPool.getCommonPoolParallelism() + 1;
+        return baseSolver == null ? own : Math.max(own, baseSolver.numThreads());
+    }
 
-        // Init best solution
-        Schedule bestSolution = current.get();
-        Schedule localBestSolution = current.get();
-        Optional<Schedule> tabooSolution;
-        Schedule bestTabooSolution = null;
-        Optional<Schedule> buffer = null;
+    @Override
+    public  Optional<Schedule> solve(Instance instance, RunControl control){
 
-        // Init iterator variable
-        int iterator = 0;
+        Optional<Schedule> initial = baseSolver.solve(instance,control);
+        if (initial.isEmpty()) {
+            return initial;
+        }
 
-        // Init iterator for swaps
-        int indexSwap;
-        int indexSelectedSwap;
+        // Working solution: neighbors are evaluated incrementally from its heads and tails
+        ResourceOrder current = new ResourceOrder(initial.get());
+        IncrementalEvaluator evaluator = new IncrementalEvaluator(instance);
+        TabooMemory tabooMemory = new TabooMemory(instance);
+        ResourceOrder best = current.copy();
+        search(current, evaluator, tabooMemory, best, control, maxIteration, Integer.MAX_VALUE, null);
+        return best.toSchedule();
+    }
 
-        // Boolean found a local best
-        boolean found;
-        boolean foundTabooImprovement = false;
+    /** Runs a taboo search trajectory from a working solution.
+     *
+     * @param current Starting solution, modified in place by the search.
+     * @param evaluator Evaluator that is attached to the working solution by this method.
+     * @param tabooMemory Taboo memory of the trajectory, used as is (it is not cleared).
+     * @param best Resource order in which the best solution of the trajectory is copied.
+     * @param control Stop conditions of the run.
+     * @param maxIterations Maximal number of iterations of the trajectory.
+     * @param maxNonImproving The trajectory stops after this number of consecutive iterations without improving its best solution.
+     * @param incumbent If not null, every improvement of the trajectory is offered to this shared incumbent.
+     * @return Makespan of the best solution of the trajectory.
+     */
+    int search(ResourceOrder current, IncrementalEvaluator evaluator, TabooMemory tabooMemory, ResourceOrder best,
+               RunControl control, int maxIterations, int maxNonImproving, SharedIncumbent incumbent) {
+        evaluator.reset(current);
+        ParallelNeighborhoodEvaluator neighborEvaluator =
+                new ParallelNeighborhoodEvaluator(evaluator, ForkJoinPool.commonPool(), parallelThreshold);
 
-        // Swap for taboo selection
-        Nowicki.Swap selectedSwap = null;
+        // Init best solution
+        best.copyFrom(current);
+        int bestMakespan = evaluator.makespan();
+        control.reportSolution(bestMakespan, () -> best.toSchedule().get());
+        if (incumbent != null) {
+            incumbent.offer(best, bestMakespan);
+        }
+        int lastImprovement = 0;
+
+        // Init iterator variable
+        int iterator = 0;
 
-        // Create TabooSolver List
-        // No need to add current solution because we only keep in memory the taboo swaps
-        TabooList tabooList = new TabooList();
+        // Swap selected at each iteration, with the makespan of the resulting neighbor
+        Nowicki.Swap selectedSwap;
+        int selectedMakespan;
 
         // Swap list
         List<Nowicki.Swap> swaps;
-        // Each neighbor is at that same index than its corresponding swap??
-        List<ResourceOrder> neighbors;
 
-        while(iterator<=maxIteration){
+        while(iterator<=maxIterations && iterator - lastImprovement <= maxNonImproving && !control.shouldStop()){
+            control.countIteration();
 
-            found = false;
-            // Update tabooList
-            tabooList.update();
+            // Expire old taboo moves
+            tabooMemory.nextIteration();
             iterator++;
-            neighbors = neighborhood.generateNeighbors(new ResourceOrder(localBestSolution));
-            swaps = neighborhood.allSwaps(new ResourceOrder(localBestSolution));
-
-            // Find best neighbor
-            indexSwap = 0;
-            indexSelectedSwap = 0;
-            for (ResourceOrder neighbor : neighbors) {
-                // Check if swap is not part of the taboo list
-                if (!tabooList.isPresent(swaps.get(indexSwap))){
-                    // Check present
-                    buffer = neighbor.toSchedule();
-                    if (buffer.isPresent()){
-                        // Select best solution
-                        if (buffer.get().makespan() < localBestSolution.makespan()) {
-                            localBestSolution = buffer.get();
-                            indexSelectedSwap = indexSwap;
-                            found = true;
-                        }
+            swaps = neighborhood.allSwaps(evaluator);
+            control.countEvaluations(swaps.size());
+
+            // Find best non-taboo neighbor
+            // A taboo swap is still accepted if it improves the best known solution (aspiration)
+            // Neighbors that cannot beat the selected one are discarded from their estimate, without exact evaluation
+            int selected = neighborEvaluator.selectBest(swaps, swap -> tabooMemory.isTaboo(current, swap), bestMakespan);
+            selectedSwap = selected == -1 ? null : swaps.get(selected);
+            selectedMakespan = neighborEvaluator.selectedMakespan();
+
+            // All neighbors are taboo: the oldest taboo move is released
+            if (selectedSwap == null) {
+                Nowicki.Swap oldestTaboo = null;
+                for (Nowicki.Swap swap : swaps) {
+                    if (tabooMemory.isTaboo(current, swap)
+                            && (oldestTaboo == null || tabooMemory.expiry(current, swap) < tabooMemory.expiry(current, oldestTaboo))) {
+                        oldestTaboo = swap;
                     }
-
                 }
-                indexSwap++;
-            }
-
-            // Modifications only if a local best is found
-            if (found) {
-                // Check for global best
-                if (localBestSolution.makespan() < bestSolution.makespan()) {
-
-                    // Find best taboo solution
-                    foundTabooImprovement = false;
-                    bestTabooSolution = localBestSolution;
-                    for (Nowicki.Swap swap : tabooList.getSwaps()) {
-                        // Check for non-empty schedule
-                        tabooSolution = swap.generateFrom(new ResourceOrder(localBestSolution)).toSchedule();
-                        // Compare taboo to best
-                        if (tabooSolution.isPresent()){
-
-                            if (tabooSolution.get().makespan() < bestTabooSolution.makespan()){
-                                foundTabooImprovement = true;
-                                selectedSwap = swap;
-                                bestTabooSolution = tabooSolution.get();
-                            }
-
-                        }
+                if (oldestTaboo != null) {
+                    selectedMakespan = evaluator.evaluate(oldestTaboo);
+                    if (selectedMakespan != IncrementalEvaluator.INFEASIBLE) {
+                        selectedSwap = oldestTaboo;
                     }
-
                 }
+            }
 
-                // Checking weather best taboo solution is found
-                if (foundTabooImprovement){
-                    bestSolution = bestTabooSolution;
-                    // Add selected swap to the tabooList
-                    tabooList.addTaboo(tabooTime,selectedSwap);
-                }else{
-                    bestSolution = localBestSolution;
-                    // Add selected swap to the tabooList
-                    tabooList.addTaboo(tabooTime, swaps.get(indexSelectedSwap));
-                }
+            // No neighbor at all (the critical path is a single job, the solution is optimal): we are stuck
+            if (selectedSwap == null) {
+                break;
             }
 
-            end = System.currentTimeMillis();
-            if ((end - start)> deadline) {break;}
+            // Only the selected swap is committed, and its reverse becomes taboo
+            evaluator.apply(selectedSwap);
+            tabooMemory.addTaboo(current, selectedSwap, tabooTime);
+
+            // Check for global best
+            if (selectedMakespan < bestMakespan) {
+                best.copyFrom(current);
+                bestMakespan = selectedMakespan;
+                lastImprovement = iterator;
+                control.reportSolution(bestMakespan, () -> best.toSchedule().get());
+                if (incumbent != null) {
+                    incumbent.offer(best, bestMakespan);
+                }
+            }
         }
-        return Optional.ofNullable(bestSolution);
+        return bestMakespan;
     }
 }
@@ -0,0 +1,336 @@
+package jobshop.solvers.neighborhood;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.TopologicalDecoder;
+
+import java.util.Arrays;
+
+/** Evaluates the makespan of neighbors of a solution without decoding them from scratch.
+ *
+ * The evaluator is attached to a working ResourceOrder (see {@link #reset(ResourceOrder)}) for which it keeps,
+ * for every operation, its head (earliest start time) and its tail (length of the longest path from the end of the
+ * operation to the end of the schedule).
+ *
+ * When two tasks of a machine are exchanged, only the operations that are reachable from the one moved earliest
+ * in the new disjunctive graph can see their start time change. {@link #evaluate(Neighborhood.Move)} recomputes the
+ * heads of those operations only, in topological order, and returns the exact makespan of the neighbor. The working
+ * ResourceOrder is left untouched; {@link #apply(Neighborhood.Move)} commits a move.
+ *
+ * An evaluator is not thread safe.
+ */
+public final class IncrementalEvaluator {
+
+    /** Value returned by {@link #evaluate(Neighborhood.Move)} for a move that does not lead to a valid solution. */
+    public static final int INFEASIBLE = Integer.MAX_VALUE;
+
+    public final Instance instance;
+
+    /** Decoder used for the complete evaluations. */
+    private final TopologicalDecoder decoder;
+
+    /** Working solution (not owned by the evaluator). */
+    private ResourceOrder order;
+
+    /** Makespan of the working solution. */
+    private int makespan = -1;
+
+    /** Heads and tails of all operations in the working solution. */
+    final int[] heads;
+    final int[] tails;
+
+    /** Machine predecessor and successor of all operations in the working solution (-1 if none). */
+    final int[] machinePredecessor;
+    final int[] machineSuccessor;
+
+    /** For each operation, its position in the sequence of its machine. */
+    final int[] machinePosition;
+
+    /** A critical path of the working solution and its length. */
+    final int[] criticalPath;
+    private int criticalPathLength = 0;
+
+    // scratch data of the incremental evaluation
+    /** Heads of the affected operations in the evaluated neighbor. */
+    private final int[] newHeads;
+    /** Number of affected predecessors that have not been processed yet. */
+    private final int[] remaining;
+    /** An operation is affected by the current evaluation iff visited[op] == stamp. */
+    private final int[] visited;
+    private int stamp = 0;
+    /** Stack for the discovery of affected operations, then FIFO queue for their processing. */
+    private final int[] stack;
+    private final int[] queue;
+
+    // description of the swap being evaluated
+    private int swapMachine;
+    private int swapIndex1, swapIndex2;
+    private int swapOp1, swapOp2;
+
+    public IncrementalEvaluator(Instance instance) {
+        this.instance = instance;
+        this.decoder = new TopologicalDecoder(instance);
+        int n = instance.numOperations;
+        this.heads = new int[n];
+        this.tails = new int[n];
+        this.machinePredecessor = new int[n];
+        this.machineSuccessor = new int[n];
+        this.machinePosition = new int[n];
+        this.criticalPath = new int[n];
+        this.newHeads = new int[n];
+        this.remaining = new int[n];
+        this.visited = new int[n];
+        this.stack = new int[n];
+        this.queue = new int[n];
+    }
+
+    /** Creates a worker evaluator that shares the working solution, heads and tails of the owner, with its own scratch
+     * data. It can evaluate swaps concurrently with the owner and other workers, as long as the working solution
+     * does not change. {@link #syncWith(IncrementalEvaluator)} must be called after each reset of the owner.
+     * A worker must not be used for moves other than swaps, that are evaluated by modifying the working solution.
+     */
+    IncrementalEvaluator(IncrementalEvaluator owner) {
+        this.instance = owner.instance;
+        this.decoder = owner.decoder;
+        this.heads = owner.heads;
+        this.tails = owner.tails;
+        this.machinePredecessor = owner.machinePredecessor;
+        this.machineSuccessor = owner.machineSuccessor;
+        this.machinePosition = owner.machinePosition;
+        this.criticalPath = owner.criticalPath;
+        int n = instance.numOperations;
+        this.newHeads = new int[n];
+        this.remaining = new int[n];
+        this.visited = new int[n];
+        this.stack = new int[n];
+        this.queue = new int[n];
+        syncWith(owner);
+    }
+
+    /** Updates a worker evaluator after a reset of its owner. */
+    void syncWith(IncrementalEvaluator owner) {
+        this.order = owner.order;
+        this.makespan = owner.makespan;
+        this.criticalPathLength = owner.criticalPathLength;
+    }
+
+    /** Attaches the evaluator to the given working solution and computes its heads and tails.
+     *
+     * @return False if the resource order is not a valid solution (the evaluator cannot be used in this case).
+     */
+    public boolean reset(ResourceOrder order) {
+        this.order = order;
+        if(!decoder.decode(order)) {
+            makespan = -1;
+            return false;
+        }
+        makespan = decoder.makespan();
+
+        final Instance pb = instance;
+        for(int op = 0 ; op < pb.numOperations ; op++) {
+            heads[op] = decoder.startTime(op);
+            machinePredecessor[op] = decoder.machinePredecessor(op);
+            machineSuccessor[op] = decoder.machineSuccessor(op);
+            machinePosition[op] = decoder.machinePosition(op);
+        }
+        criticalPathLength = decoder.criticalPath(criticalPath);
+
+        // tails are computed in reverse topological order
+        for(int i = pb.numOperations - 1 ; i >= 0 ; i--) {
+            int op = decoder.topologicalOrder(i);
+            int tail = 0;
+            if((op + 1) % pb.numTasks != 0)
+                tail = tails[op + 1] + pb.operationDuration(op + 1);
+            int next = machineSuccessor[op];
+            if(next != -1)
+                tail = Math.max(tail, tails[next] + pb.operationDuration(next));
+            tails[op] = tail;
+        }
+        return true;
+    }
+
+    /** Working solution to which the evaluator is attached. */
+    public ResourceOrder order() {
+        return order;
+    }
+
+    /** Makespan of the working solution. */
+    public int makespan() {
+        return makespan;
+    }
+
+    /** Head (earliest start time) of the given operation in the working solution. */
+    public int head(int op) {
+        return heads[op];
+    }
+
+    /** Tail of the given operation in the working solution: length of the longest path from its end to the end
+     * of the schedule. The longest path through an operation has length head + duration + tail. */
+    public int tail(int op) {
+        return tails[op];
+    }
+
+    /** Previous operation on the machine of the given one in the working solution (-1 if none). */
+    public int machinePredecessor(int op) {
+        return machinePredecessor[op];
+    }
+
+    /** Next operation on the machine of the given one in the working solution (-1 if none). */
+    public int machineSuccessor(int op) {
+        return machineSuccessor[op];
+    }
+
+    /** Position of the given operation in the sequence of its machine. */
+    public int machinePosition(int op) {
+        return machinePosition[op];
+    }
+
+    /** Number of operations on the critical path of the working solution. */
+    public int criticalPathLength() {
+        return criticalPathLength;
+    }
+
+    /** The i-th operation on the critical path of the working solution, the first one starting at time 0. */
+    public int criticalPathOperation(int i) {
+        return criticalPath[i];
+    }
+
+    /** Commits a move on the working solution and updates the heads and tails.
+     *
+     * @return False if the resulting solution is invalid.
+     */
+    public boolean apply(Neighborhood.Move move) {
+        move.applyOn(order);
+        return reset(order);
+    }
+
+    /** Returns the exact makespan of the solution obtained by applying the move on the working solution,
+     * or {@link #INFEASIBLE} if it has a cycle. The working solution is not modified.
+     *
+     * Swaps are evaluated incrementally, other moves are evaluated with a complete decoding.
+     */
+    public int evaluate(Neighborhood.Move move) {
+        if(move instanceof Nowicki.Swap) {
+            Nowicki.Swap swap = (Nowicki.Swap) move;
+            return evaluateSwap(swap.machine, swap.t1, swap.t2);
+        }
+        return evaluateFully(move);
+    }
+
+    /** Reference evaluation: applies the move, decodes the whole solution and reverts the move. */
+    public int evaluateFully(Neighborhood.Move move) {
+        move.applyOn(order);
+        boolean valid = decoder.decode(order);
+        move.revertOn(order);
+        return valid ? decoder.makespan() : INFEASIBLE;
+    }
+
+    /** Incremental evaluation of the exchange of the tasks at positions t1 < t2 on the given machine. */
+    int evaluateSwap(int machine, int t1, int t2) {
+        final Instance pb = instance;
+        swapMachine = machine;
+        swapIndex1 = t1;
+        swapIndex2 = t2;
+        swapOp1 = order.operationAt(machine, t1); // moved to position t2
+        swapOp2 = order.operationAt(machine, t2); // moved to position t1
+
+        // overflow of the stamp: clear all marks
+        if(++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+
+        // discover all operations reachable from the one that is now first, and count their affected predecessors
+        int numAffected = 0;
+        int top = 0;
+        visited[swapOp2] = stamp;
+        remaining[swapOp2] = 0;
+        stack[top++] = swapOp2;
+        while(top > 0) {
+            int op = stack[--top];
+            numAffected++;
+            if((op + 1) % pb.numTasks != 0)
+                top = discover(op + 1, top);
+            int next = newMachineSuccessor(op);
+            if(next != -1)
+                top = discover(next, top);
+        }
+
+        // recompute the heads of affected operations in topological order
+        int queueEnd = 0;
+        if(remaining[swapOp2] == 0)
+            queue[queueEnd++] = swapOp2;
+        for(int queueStart = 0 ; queueStart < queueEnd ; queueStart++) {
+            int op = queue[queueStart];
+            int head = 0;
+            if(op % pb.numTasks != 0)
+                head = end(op - 1);
+            int previous = newMachinePredecessor(op);
+            if(previous != -1)
+                head = Math.max(head, end(previous));
+            newHeads[op] = head;
+
+            if((op + 1) % pb.numTasks != 0 && --remaining[op + 1] == 0)
+                queue[queueEnd++] = op + 1;
+            int next = newMachineSuccessor(op);
+            if(next != -1 && --remaining[next] == 0)
+                queue[queueEnd++] = next;
+        }
+        if(queueEnd != numAffected)
+            return INFEASIBLE; // some affected operation is its own predecessor
+
+        // the makespan is the latest end of the last tasks of all jobs
+        int max = 0;
+        for(int job = 0 ; job < pb.numJobs ; job++) {
+            max = Math.max(max, end(pb.operation(job, pb.numTasks - 1)));
+        }
+        return max;
+    }
+
+    /** Marks the given successor as affected and counts one more affected predecessor for it. */
+    private int discover(int op, int top) {
+        if(visited[op] != stamp) {
+            visited[op] = stamp;
+            remaining[op] = 0;
+            stack[top++] = op;
+        }
+        remaining[op]++;
+        return top;
+    }
+
+    /** End time of an operation in the neighbor being evaluated. */
+    private int end(int op) {
+        return (visited[op] == stamp ? newHeads[op] : heads[op]) + instance.operationDuration(op);
+    }
+
+    /** Operation at the given position on the swapped machine, in the neighbor being evaluated. */
+    private int newOperationAt(int index) {
+        if(index == swapIndex1)
+            return swapOp2;
+        if(index == swapIndex2)
+            return swapOp1;
+        return order.operationAt(swapMachine, index);
+    }
+
+    private int newPosition(int op) {
+        if(op == swapOp1)
+            return swapIndex2;
+        if(op == swapOp2)
+            return swapIndex1;
+        return machinePosition[op];
+    }
+
+    private int newMachineSuccessor(int op) {
+        if(instance.operationMachine(op) != swapMachine)
+            return machineSuccessor[op];
+        int position = newPosition(op);
+        return position + 1 < instance.numJobs ? newOperationAt(position + 1) : -1;
+    }
+
+    private int newMachinePredecessor(int op) {
+        if(instance.operationMachine(op) != swapMachine)
+            return machinePredecessor[op];
+        int position = newPosition(op);
+        return position > 0 ? newOperationAt(position - 1) : -1;
+    }
+}
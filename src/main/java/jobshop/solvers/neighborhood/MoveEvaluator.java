@@ -0,0 +1,179 @@
+package jobshop.solvers.neighborhood;
+
+import jobshop.Instance;
+
+import java.util.List;
+
+/** Constant time estimation of the makespan of the neighbors of the Nowicki neighborhood.
+ *
+ * Consider two adjacent tasks u and v on a machine (u before v), with a the machine predecessor of u and b the
+ * machine successor of v. Exchanging them gives the sequence a, v, u, b. Using the heads (r) and tails (q) of the
+ * current solution (see {@link IncrementalEvaluator}), the heads and tails of u and v after the exchange are
+ * <pre>
+ *   r'(v) = max(r(PJ(v)) + p(PJ(v)), r(a) + p(a))      q'(u) = max(q(SJ(u)) + p(SJ(u)), q(b) + p(b))
+ *   r'(u) = max(r(PJ(u)) + p(PJ(u)), r'(v) + p(v))      q'(v) = max(q(SJ(v)) + p(SJ(v)), q'(u) + p(u))
+ * </pre>
+ * where PJ and SJ denote predecessors and successors on the job. The estimate is the length of the longest
+ * path through u or v: <code>max(r'(v) + p(v) + q'(v), r'(u) + p(u) + q'(u))</code>.
+ *
+ * When the exchange does not create a cycle (which is the case for adjacent tasks of a critical path), none of
+ * PJ(u), PJ(v), a and their ancestors can be reached from u or v, so their heads are unchanged, and symmetrically
+ * for the tails: the estimate is exactly the length of the longest path through u or v in the neighbor.
+ * The other paths do not use any modified arc, so their length is at most the current makespan. Hence:
+ * <ul>
+ *     <li>the estimate is a lower bound of the makespan of the neighbor, and</li>
+ *     <li>it is exact whenever it is at least the current makespan.</li>
+ * </ul>
+ * {@link #evaluate(Nowicki.Swap, int)} relies on these two properties to only perform an exact (incremental)
+ * evaluation for neighbors that can be better than a given threshold.
+ */
+public final class MoveEvaluator {
+
+    /** Evaluator holding the heads and tails of the current solution. */
+    public final IncrementalEvaluator evaluator;
+
+    private final Instance instance;
+
+    // statistics on the quality of the estimates
+    private long numEstimates = 0;
+    private long numExact = 0;
+    private long numDisagreements = 0;
+    private long numOverestimates = 0;
+
+    public MoveEvaluator(IncrementalEvaluator evaluator) {
+        this.evaluator = evaluator;
+        this.instance = evaluator.instance;
+    }
+
+    /** Estimated makespan after applying the swap on the current solution of the evaluator.
+     *
+     * For adjacent tasks, this is the constant time estimate described above. Other swaps are evaluated exactly.
+     */
+    public int estimate(Nowicki.Swap swap) {
+        return estimate(swap.machine, swap.t1, swap.t2);
+    }
+
+    /** Estimated makespan after exchanging the tasks at positions t1 < t2 on the machine. */
+    public int estimate(int machine, int t1, int t2) {
+        if(t2 != t1 + 1)
+            return evaluator.evaluateSwap(machine, t1, t2);
+        numEstimates++;
+
+        final IncrementalEvaluator e = evaluator;
+        final Instance pb = instance;
+        int u = e.order().operationAt(machine, t1);
+        int v = e.order().operationAt(machine, t2);
+        int a = e.machinePredecessor(u);
+        int b = e.machineSuccessor(v);
+        int pu = pb.operationDuration(u);
+        int pv = pb.operationDuration(v);
+
+        int headV = Math.max(jobPredecessorEnd(v), a == -1 ? 0 : e.head(a) + pb.operationDuration(a));
+        int headU = Math.max(jobPredecessorEnd(u), headV + pv);
+        int tailU = Math.max(jobSuccessorPath(u), b == -1 ? 0 : e.tail(b) + pb.operationDuration(b));
+        int tailV = Math.max(jobSuccessorPath(v), tailU + pu);
+
+        return Math.max(headV + pv + tailV, headU + pu + tailU);
+    }
+
+    /** Fills the array with the estimates of all given swaps, in the same order. */
+    public void estimateAll(List<Nowicki.Swap> swaps, int[] estimates) {
+        for(int i = 0 ; i < swaps.size() ; i++) {
+            estimates[i] = estimate(swaps.get(i));
+        }
+    }
+
+    /** Evaluates a swap, only computing its exact makespan when it could be lower than the threshold.
+     *
+     * @return The exact makespan (or {@link IncrementalEvaluator#INFEASIBLE}) of the neighbor if it is lower than the
+     *         threshold. Otherwise, a value greater than or equal to the threshold, that is a lower bound of the makespan.
+     */
+    public int evaluate(Nowicki.Swap swap, int threshold) {
+        return evaluate(swap.machine, swap.t1, swap.t2, threshold);
+    }
+
+    /** Same as {@link #evaluate(Nowicki.Swap, int)} for the exchange of the tasks at positions t1 < t2 on the machine. */
+    public int evaluate(int machine, int t1, int t2, int threshold) {
+        int estimate = estimate(machine, t1, t2);
+        if(estimate >= threshold)
+            return estimate; // cannot be better than the threshold
+        if(estimate >= evaluator.makespan() && isSurelyAcyclic(machine, t1, t2))
+            return estimate; // proven exact
+        return exact(machine, t1, t2, estimate);
+    }
+
+    /** Sufficient condition for an exchange of adjacent tasks u and v to not create a cycle.
+     *
+     * A cycle requires a path from the job successor of u to the job predecessor of v, which is impossible if the
+     * latter starts strictly earlier. This always holds for tasks of a critical path with positive durations.
+     */
+    private boolean isSurelyAcyclic(int machine, int t1, int t2) {
+        int u = evaluator.order().operationAt(machine, t1);
+        int v = evaluator.order().operationAt(machine, t2);
+        if((u + 1) % instance.numTasks == 0 || v % instance.numTasks == 0)
+            return true; // no job successor of u or no job predecessor of v
+        return evaluator.head(v - 1) < evaluator.head(u + 1);
+    }
+
+    /** Exact evaluation of a swap, which is recorded to compare it with its estimate. */
+    public int exact(Nowicki.Swap swap) {
+        return exact(swap.machine, swap.t1, swap.t2, estimate(swap));
+    }
+
+    private int exact(int machine, int t1, int t2, int estimate) {
+        int exact = evaluator.evaluateSwap(machine, t1, t2);
+        if(t2 == t1 + 1 && exact != IncrementalEvaluator.INFEASIBLE) {
+            numExact++;
+            if(estimate != exact)
+                numDisagreements++;
+            if(estimate > exact)
+                numOverestimates++;
+        }
+        return exact;
+    }
+
+    /** Number of constant time estimates that were computed. */
+    public long numEstimates() {
+        return numEstimates;
+    }
+
+    /** Number of estimates that were compared with an exact evaluation. */
+    public long numExactEvaluations() {
+        return numExact;
+    }
+
+    /** Number of exact evaluations whose result differed from the estimate. */
+    public long numDisagreements() {
+        return numDisagreements;
+    }
+
+    /** Number of exact evaluations that were lower than the estimate. Must be zero since the estimate is a lower bound. */
+    public long numOverestimates() {
+        return numOverestimates;
+    }
+
+    /** Proportion of exact evaluations that differed from their estimate. */
+    public double disagreementRate() {
+        return numExact == 0 ? 0 : (double) numDisagreements / numExact;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("estimates: %d, exact evaluations: %d, disagreements: %d (%.1f%%), overestimates: %d",
+                numEstimates, numExact, numDisagreements, 100 * disagreementRate(), numOverestimates);
+    }
+
+    /** End time of the job predecessor of an operation in the current solution (0 if it is the first of its job). */
+    private int jobPredecessorEnd(int op) {
+        if(op % instance.numTasks == 0)
+            return 0;
+        return evaluator.head(op - 1) + instance.operationDuration(op - 1);
+    }
+
+    /** Duration plus tail of the job successor of an operation (0 if it is the last of its job). */
+    private int jobSuccessorPath(int op) {
+        if((op + 1) % instance.numTasks == 0)
+            return 0;
+        return evaluator.tail(op + 1) + instance.operationDuration(op + 1);
+    }
+}
@@ -2,14 +2,100 @@ package jobshop.solvers.neighborhood;
 
 import jobshop.encodings.ResourceOrder;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /** For a particular solution in the ResourceOrder encoding, a neighborhood allows the generation of its neighbors:
  * a set of closely related solutions.
+ *
+ * Each neighbor is obtained by applying a {@link Move} to the current solution. Moves can be applied to and
+ * reverted from a single working ResourceOrder, which allows evaluating all neighbors without copying the
+ * current solution.
  */
 public abstract class Neighborhood {
 
-    /** Generates all neighbors for the current solution.  */
-    public abstract List<ResourceOrder> generateNeighbors(ResourceOrder current);
+    /** A modification of a ResourceOrder that can be performed and undone in place. */
+    public interface Move {
+
+        /** Modifies the given resource order by performing this move. */
+        void applyOn(ResourceOrder order);
+
+        /** Undoes this move on a resource order on which it was just applied. */
+        void revertOn(ResourceOrder order);
+    }
+
+    /** Iterates over the moves of the working solution of an evaluator, one at a time.
+     *
+     * A cursor is created once with {@link #newCursor()} and positioned on a new solution with
+     * {@link #reset(IncrementalEvaluator)}, so that a solver can enumerate the moves of each of its solutions without
+     * building a list, and stop as soon as it found a move it is satisfied with. Implementations may expose the
+     * current move through primitive fields, {@link #move()} creating a standalone object for it.
+     */
+    public static abstract class Cursor {
+
+        /** Positions the cursor before the first move of the working solution of the evaluator. */
+        public abstract void reset(IncrementalEvaluator evaluator);
+
+        /** Advances to the next move.
+         * @return False if there are no more moves.
+         */
+        public abstract boolean next();
+
+        /** The current move, that remains valid after the cursor advances. */
+        public abstract Move move();
+    }
+
+    /** Cursor over the list of moves given by {@link #moves(IncrementalEvaluator)}. */
+    private class ListCursor extends Cursor {
+        private List<? extends Move> moves = List.of();
+        private int index = -1;
+
+        @Override
+        public void reset(IncrementalEvaluator evaluator) {
+            moves = moves(evaluator);
+            index = -1;
+        }
+
+        @Override
+        public boolean next() {
+            return ++index < moves.size();
+        }
+
+        @Override
+        public Move move() {
+            return moves.get(index);
+        }
+    }
+
+    /** Creates a new cursor on the moves of this neighborhood. Neighborhoods should override it to enumerate moves
+     * lazily; by default the cursor iterates over the list of all moves. */
+    public Cursor newCursor() {
+        return new ListCursor();
+    }
+
+    /** Generates all moves leading to a neighbor of the current solution. */
+    public abstract List<? extends Move> moves(ResourceOrder current);
+
+    /** Generates all moves leading to a neighbor of the working solution of the evaluator.
+     * Neighborhoods can override it to reuse the data already computed by the evaluator. */
+    public List<? extends Move> moves(IncrementalEvaluator evaluator) {
+        return moves(evaluator.order());
+    }
+
+    /** Generates all neighbors for the current solution.
+     *
+     * Each neighbor is a new copy of the current solution. Solvers that only need to evaluate neighbors should
+     * rather apply and revert the {@link #moves(ResourceOrder)} on a working copy.
+     */
+    public List<ResourceOrder> generateNeighbors(ResourceOrder current) {
+        List<? extends Move> moves = moves(current);
+        List<ResourceOrder> neighbors = new ArrayList<>(moves.size());
+        for(Move move : moves) {
+            ResourceOrder neighbor = current.copy();
+            move.applyOn(neighbor);
+            neighbors.add(neighbor);
+        }
+        return neighbors;
+    }
 
 }
@@ -2,14 +2,10 @@ package jobshop.solvers.neighborhood;
 
 import jobshop.Instance;
 import jobshop.encodings.ResourceOrder;
-import jobshop.encodings.Schedule;
-import jobshop.encodings.Task;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 /** Implementation of the Nowicki and Smutnicki neighborhood.
  *
@@ -63,7 +59,7 @@ public class Nowicki extends Neighborhood {
      * machine 1 : (2,1) (0,2) (1,1)
      * machine 2 : ...
      */
-    public static class Swap {
+    public static class Swap implements Neighborhood.Move {
         /** machine on which to perform the swap */
         public final int machine;
 
@@ -96,11 +92,22 @@ public class Nowicki extends Neighborhood {
          */
         public ResourceOrder generateFrom(ResourceOrder original) {
             ResourceOrder res = new ResourceOrder(original);
-//            System.out.println("[generateFrom] machine : " + this.machine + " t1 : " + this.t1 + " t2 : " + this.t2);
-            res.swapTasks(this.machine, this.t1, this.t2);
+            applyOn(res);
             return res;
         }
 
+        /** Performs the swap in place on the given ResourceOrder. */
+        @Override
+        public void applyOn(ResourceOrder order) {
+            order.swapTasks(this.machine, this.t1, this.t2);
+        }
+
+        /** Undoes the swap in place. Since exchanging two tasks twice is the identity, this is the same as applying it. */
+        @Override
+        public void revertOn(ResourceOrder order) {
+            order.swapTasks(this.machine, this.t1, this.t2);
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -115,21 +122,155 @@ public class Nowicki extends Neighborhood {
         }
     }
 
+    /** Cursor on the swaps of the Nowicki neighborhood, that discovers the blocks of the critical path lazily.
+     *
+     * The current swap is exposed through {@link #machine()}, {@link #t1()} and {@link #t2()}, so that enumerating
+     * the neighborhood does not allocate. Swaps are enumerated in the same order as in {@link #allSwaps(IncrementalEvaluator)}.
+     */
+    public static final class SwapCursor extends Neighborhood.Cursor {
+        private IncrementalEvaluator evaluator;
+        private Instance instance;
+
+        /** Next position to look at on the critical path. */
+        private int pathIndex;
+        private boolean pathDone;
+
+        /** Block being discovered (first and last positions on its machine). */
+        private int scanMachine, scanFirst, scanLast;
+
+        /** Block whose swaps are being enumerated, with the number of its swaps that were not enumerated yet. */
+        private int blockMachine, blockFirst, blockLast;
+        private int remainingInBlock;
+
+        /** Current swap. */
+        private int machine = -1, t1 = -1, t2 = -1;
+
+        @Override
+        public void reset(IncrementalEvaluator evaluator) {
+            this.evaluator = evaluator;
+            this.instance = evaluator.instance;
+            pathIndex = 0;
+            pathDone = false;
+            scanMachine = scanFirst = scanLast = -1;
+            remainingInBlock = 0;
+            machine = t1 = t2 = -1;
+        }
+
+        /** Finds the next block with at least two tasks on the critical path. */
+        private boolean nextBlock() {
+            while (pathIndex < evaluator.criticalPathLength()) {
+                int op = evaluator.criticalPathOperation(pathIndex++);
+                if (instance.operationMachine(op) == scanMachine) {
+                    scanLast++;
+                } else {
+                    boolean found = scanLast != scanFirst;
+                    if (found)
+                        setBlock(scanMachine, scanFirst, scanLast);
+                    scanMachine = instance.operationMachine(op);
+                    scanFirst = evaluator.machinePosition(op);
+                    scanLast = scanFirst;
+                    if (found)
+                        return true;
+                }
+            }
+            if (!pathDone) {
+                pathDone = true;
+                if (scanLast != scanFirst) {
+                    setBlock(scanMachine, scanFirst, scanLast);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void setBlock(int machine, int first, int last) {
+            blockMachine = machine;
+            blockFirst = first;
+            blockLast = last;
+            remainingInBlock = last - first <= 1 ? 1 : 2;
+        }
+
+        @Override
+        public boolean next() {
+            if (remainingInBlock == 0 && !nextBlock())
+                return false;
+            machine = blockMachine;
+            if (blockLast - blockFirst <= 1 || remainingInBlock == 1) {
+                // only swap of a block of two tasks, or swap of the last two tasks
+                t1 = blockLast - 1;
+                t2 = blockLast;
+            } else {
+                // swap of the first two tasks
+                t1 = blockFirst;
+                t2 = blockFirst + 1;
+            }
+            remainingInBlock--;
+            return true;
+        }
+
+        /** Machine of the current swap. */
+        public int machine() {
+            return machine;
+        }
+
+        /** Position of the first task of the current swap on its machine. */
+        public int t1() {
+            return t1;
+        }
+
+        /** Position of the second task of the current swap on its machine (t1 < t2). */
+        public int t2() {
+            return t2;
+        }
+
+        @Override
+        public Swap move() {
+            return new Swap(machine, t1, t2);
+        }
+    }
+
+    /** Evaluator of the methods that take a resource order, kept by each thread and replaced when the instance changes. */
+    private final ThreadLocal<IncrementalEvaluator> evaluators = new ThreadLocal<>();
+
+    /** Evaluator of the calling thread attached to the given order, or null if the order is not a valid solution. */
+    private IncrementalEvaluator evaluatorOf(ResourceOrder order) {
+        IncrementalEvaluator evaluator = evaluators.get();
+        if (evaluator == null || evaluator.instance != order.instance) {
+            evaluator = new IncrementalEvaluator(order.instance);
+            evaluators.set(evaluator);
+        }
+        return evaluator.reset(order) ? evaluator : null;
+    }
 
     @Override
-    public List<ResourceOrder> generateNeighbors(ResourceOrder current) {
-        // convert the list of swaps into a list of neighbors (function programming FTW)
-        return allSwaps(current).stream().map(swap -> swap.generateFrom(current)).collect(Collectors.toList());
+    public SwapCursor newCursor() {
+        return new SwapCursor();
     }
 
-    /** Generates all swaps of the given ResourceOrder.
+    @Override
+    public List<Swap> moves(ResourceOrder current) {
+        return allSwaps(current);
+    }
+
+    @Override
+    public List<Swap> moves(IncrementalEvaluator evaluator) {
+        return allSwaps(evaluator);
+    }
+
+    /** Generates all swaps of the given ResourceOrder, none if it is not a valid solution.
      * This method can be used if one wants to access the inner fields of a neighbors. */
     public List<Swap> allSwaps(ResourceOrder current) {
+        IncrementalEvaluator evaluator = evaluatorOf(current);
+        return evaluator == null ? new ArrayList<>() : allSwaps(evaluator);
+    }
+
+    /** Generates all swaps of the working solution of the evaluator, using its critical path (no decoding needed). */
+    public List<Swap> allSwaps(IncrementalEvaluator evaluator) {
         List<Swap> neighbors = new ArrayList<>();
-        // iterate over all blocks of the critical path
-        for(var block : blocksOfCriticalPath(current)) {
-            // for this block, compute all neighbors and add them to the list of neighbors
-            neighbors.addAll(neighbors(block));
+        SwapCursor cursor = newCursor();
+        cursor.reset(evaluator);
+        while (cursor.next()) {
+            neighbors.add(cursor.move());
         }
         return neighbors;
     }
@@ -137,12 +278,21 @@ public class Nowicki extends Neighborhood {
     /** Creates a new array list of all blocks of a critical path.
      *
      * @param order the current RessourceOrder.
-     * @return a list of all the blocks of the critical path.
+     * @return a list of all the blocks of the critical path, empty if the order is not a valid solution.
      */
     public List<Block> blocksOfCriticalPath(ResourceOrder order) {
-        Optional<Schedule> schedule = order.toSchedule();
-        List<Task> criticalPath = schedule.get().criticalPath();
+        IncrementalEvaluator evaluator = evaluatorOf(order);
+        return evaluator == null ? new ArrayList<>() : blocksOfCriticalPath(evaluator);
+    }
+
+    /** Creates a new array list of all blocks of the critical path of the working solution of the evaluator.
+     *
+     * The critical path and the position of each task on its machine are already known by the evaluator,
+     * so this runs in time linear in the length of the critical path.
+     */
+    public List<Block> blocksOfCriticalPath(IncrementalEvaluator evaluator) {
         List<Block> blocks = new ArrayList<>();
+        Instance instance = evaluator.instance;
 
         // Variables pour définir les blocks
         int first = -1;
@@ -150,28 +300,22 @@ public class Nowicki extends Neighborhood {
         int lastMachine = -1;
 
         // Pour chaque tâche du chemin critique
-        for (Task t : criticalPath) {
+        for (int i = 0; i < evaluator.criticalPathLength(); i++) {
+            int op = evaluator.criticalPathOperation(i);
             // Si la tâche évaluée fait partie du block actuel on l'ajoute
-            if (order.instance.machine(t) == lastMachine) {
+            if (instance.operationMachine(op) == lastMachine) {
                 last++;
             }
-            // Sinon on va regarder si elle peut être la première tâche d'un block
+            // Sinon elle est la première tâche d'un nouveau block potentiel
             else {
                 // Si le block construit précédement est plus grand que 1 alors c'est un block et on l'ajoute
                 if (last != first) {
                     blocks.add(new Block(lastMachine, first, last));
                 }
-                // On défini la machine étudiée à celle de la tâche actuelle
-                lastMachine = order.instance.machine(t);
-                // Puis on va regarder chaque job jusqu'à trouver un job qui utilise la même machine
-                // Si c'est le cas on défini un nouveau block et on arrête la boucle
-                for (int i=0; i < order.instance.numJobs; i++) {
-                    if (order.getTaskOfMachine(lastMachine, i).equals(t)) {
-                        first = i;
-                        last = first;
-                        break;
-                    }
-                }
+                // On défini la machine étudiée à celle de la tâche actuelle, et sa position sur la machine
+                lastMachine = instance.operationMachine(op);
+                first = evaluator.machinePosition(op);
+                last = first;
             }
         }
         if (last != first) {
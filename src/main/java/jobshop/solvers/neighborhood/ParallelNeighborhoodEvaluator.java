@@ -0,0 +1,153 @@
+package jobshop.solvers.neighborhood;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/** Selects the best swap of a neighborhood by evaluating the swaps in parallel on a {@link ForkJoinPool}.
+ *
+ * The list of swaps is cut into one chunk per worker of the pool. Each chunk is evaluated by a task with its own
+ * {@link MoveEvaluator} and scratch buffers (see {@link IncrementalEvaluator#IncrementalEvaluator(IncrementalEvaluator)}),
+ * that share the heads and tails of the working solution. Within a chunk, swaps that cannot beat the best one of
+ * the chunk are discarded from their estimate. Chunk results are reduced by makespan then by index, so the selected
+ * swap is always the first best admissible swap of the list, whatever the number of workers and the scheduling of
+ * the tasks.
+ *
+ * Neighborhoods with less swaps than a threshold are evaluated sequentially by the calling thread, to avoid the
+ * parallel overhead on small instances. A parallel evaluator is not thread safe.
+ */
+public final class ParallelNeighborhoodEvaluator {
+
+    /** Default minimal number of swaps for a parallel evaluation. */
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 64;
+
+    private final IncrementalEvaluator owner;
+    private final MoveEvaluator ownerMoves;
+    private final ForkJoinPool pool;
+    private final int sequentialThreshold;
+
+    /** One evaluator per chunk, sharing the working solution of the owner. Created on the first parallel evaluation. */
+    private MoveEvaluator[] workers;
+
+    /** Makespan of the swap returned by the last call to {@link #selectBest(List, Predicate, int)}. */
+    private int selectedMakespan = IncrementalEvaluator.INFEASIBLE;
+
+    /**
+     * @param owner Evaluator attached to the working solution. The swaps are evaluated on its current state.
+     * @param pool Pool on which the chunks are evaluated.
+     * @param sequentialThreshold Neighborhoods with less swaps are evaluated sequentially.
+     */
+    public ParallelNeighborhoodEvaluator(IncrementalEvaluator owner, ForkJoinPool pool, int sequentialThreshold) {
+        this.owner = owner;
+        this.ownerMoves = new MoveEvaluator(owner);
+        this.pool = pool;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    /** Parallel evaluator on the common pool, with the default threshold. */
+    public ParallelNeighborhoodEvaluator(IncrementalEvaluator owner) {
+        this(owner, ForkJoinPool.commonPool(), DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+
+    /** Selects the best admissible swap of the list on the current working solution of the owner.
+     *
+     * @param swaps Swaps to evaluate.
+     * @param taboo Swaps for which this predicate holds are only admissible if they are better than the aspiration
+     *              makespan (null if no swap is taboo). It is called concurrently and must not modify any state.
+     * @param aspiration Makespan that a taboo swap must strictly improve to be admissible.
+     * @return Index of the first swap with the lowest makespan among admissible ones, or -1 if none is admissible.
+     *         Its makespan is then given by {@link #selectedMakespan()}.
+     */
+    public int selectBest(List<Nowicki.Swap> swaps, Predicate<Nowicki.Swap> taboo, int aspiration) {
+        long best;
+        int numChunks = Math.min(pool.getParallelism(), swaps.size());
+        if (swaps.size() < sequentialThreshold || numChunks < 2) {
+            best = selectInRange(ownerMoves, swaps, 0, swaps.size(), taboo, aspiration);
+        } else {
+            if (workers == null) {
+                workers = new MoveEvaluator[pool.getParallelism()];
+                for (int i = 0; i < workers.length; i++) {
+                    workers[i] = new MoveEvaluator(new IncrementalEvaluator(owner));
+                }
+            }
+            for (MoveEvaluator worker : workers) {
+                worker.evaluator.syncWith(owner);
+            }
+            best = pool.invoke(new Chunks(swaps, taboo, aspiration, numChunks, 0, numChunks));
+        }
+        if (best == NONE) {
+            selectedMakespan = IncrementalEvaluator.INFEASIBLE;
+            return -1;
+        }
+        selectedMakespan = (int) (best >>> 32);
+        return (int) best;
+    }
+
+    /** Makespan of the swap selected by the last call to {@link #selectBest(List, Predicate, int)}. */
+    public int selectedMakespan() {
+        return selectedMakespan;
+    }
+
+    /** Result of a selection packed in a long (makespan in the high bits, index in the low bits), so that the
+     * natural order of results is by makespan then by index. */
+    private static final long NONE = Long.MAX_VALUE;
+
+    private static long pack(int makespan, int index) {
+        return ((long) makespan << 32) | index;
+    }
+
+    /** Sequential selection of the best admissible swap with index in [from, to). */
+    private static long selectInRange(MoveEvaluator moves, List<Nowicki.Swap> swaps, int from, int to,
+                                      Predicate<Nowicki.Swap> taboo, int aspiration) {
+        int selected = -1;
+        int selectedMakespan = IncrementalEvaluator.INFEASIBLE;
+        for (int i = from; i < to; i++) {
+            Nowicki.Swap swap = swaps.get(i);
+            boolean isTaboo = taboo != null && taboo.test(swap);
+            int makespan = moves.evaluate(swap, isTaboo ? Math.min(selectedMakespan, aspiration) : selectedMakespan);
+            if (makespan == IncrementalEvaluator.INFEASIBLE)
+                continue;
+            if (makespan < selectedMakespan && (!isTaboo || makespan < aspiration)) {
+                selected = i;
+                selectedMakespan = makespan;
+            }
+        }
+        return selected == -1 ? NONE : pack(selectedMakespan, selected);
+    }
+
+    /** Evaluation of the chunks [firstChunk, lastChunk), each chunk being processed by its own worker. */
+    private final class Chunks extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Nowicki.Swap> swaps;
+        private final Predicate<Nowicki.Swap> taboo;
+        private final int aspiration;
+        private final int numChunks;
+        private final int firstChunk, lastChunk;
+
+        Chunks(List<Nowicki.Swap> swaps, Predicate<Nowicki.Swap> taboo, int aspiration, int numChunks, int firstChunk, int lastChunk) {
+            this.swaps = swaps;
+            this.taboo = taboo;
+            this.aspiration = aspiration;
+            this.numChunks = numChunks;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+        }
+
+        @Override
+        protected Long compute() {
+            if (lastChunk - firstChunk == 1) {
+                int from = (int) ((long) swaps.size() * firstChunk / numChunks);
+                int to = (int) ((long) swaps.size() * lastChunk / numChunks);
+                return selectInRange(workers[firstChunk], swaps, from, to, taboo, aspiration);
+            }
+            int middle = (firstChunk + lastChunk) >>> 1;
+            Chunks left = new Chunks(swaps, taboo, aspiration, numChunks, firstChunk, middle);
+            Chunks right = new Chunks(swaps, taboo, aspiration, numChunks, middle, lastChunk);
+            left.fork();
+            long rightBest = right.compute();
+            return Math.min(left.join(), rightBest);
+        }
+    }
+}
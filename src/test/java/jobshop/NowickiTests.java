@@ -2,15 +2,25 @@ package jobshop;
 
 import jobshop.encodings.ResourceOrder;
 import jobshop.encodings.Schedule;
+import jobshop.solvers.DescentSolver;
 import jobshop.solvers.GreedyRandomSolver;
 import jobshop.solvers.GreedySolver;
+import jobshop.solvers.RunControl;
+import jobshop.solvers.Solver;
+import jobshop.solvers.neighborhood.IncrementalEvaluator;
+import jobshop.solvers.neighborhood.MoveEvaluator;
 import jobshop.solvers.neighborhood.Nowicki;
+import jobshop.solvers.neighborhood.ParallelNeighborhoodEvaluator;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 public class NowickiTests {
 
@@ -40,4 +50,183 @@ public class NowickiTests {
         List<Nowicki.Swap> swapList = nowicki.neighbors(blocks.get(0));
     }
 
+    @Test
+    public void noMovesOfInvalidOrder() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        ResourceOrder order = new ResourceOrder(new GreedySolver(GreedySolver.Priority.SPT).solve(instance, 0).get());
+        Nowicki nowicki = new Nowicki();
+        assert !nowicki.allSwaps(order).isEmpty();
+
+        // incomplete order, that cannot be decoded
+        ResourceOrder empty = new ResourceOrder(instance);
+        assert nowicki.allSwaps(empty).isEmpty();
+        assert nowicki.blocksOfCriticalPath(empty).isEmpty();
+        // the evaluator kept by the neighborhood is still usable
+        assert nowicki.allSwaps(order).equals(nowicki.allSwaps(order.copy()));
+    }
+
+    @Test
+    public void testIncrementalEvaluation() throws IOException {
+        Random random = new Random(0);
+        for (String instanceName : new String[]{"aaa3", "ft06", "ft10", "la16", "abz7", "ta21"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+            Schedule initial = new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance, 0).get();
+            ResourceOrder current = new ResourceOrder(initial);
+            IncrementalEvaluator evaluator = new IncrementalEvaluator(instance);
+            assert evaluator.reset(current);
+            assert evaluator.makespan() == initial.makespan();
+
+            Nowicki nowicki = new Nowicki();
+            for (int iteration = 0; iteration < 30; iteration++) {
+                // all swaps of the neighborhood are evaluated exactly
+                List<Nowicki.Swap> swaps = nowicki.allSwaps(current);
+                for (Nowicki.Swap swap : swaps) {
+                    assert evaluator.evaluate(swap) == evaluator.evaluateFully(swap) : "Wrong evaluation of " + swap;
+                }
+                // arbitrary swaps, that may create cycles
+                for (int i = 0; i < 20; i++) {
+                    int machine = random.nextInt(instance.numMachines);
+                    int t1 = random.nextInt(instance.numJobs);
+                    int t2 = random.nextInt(instance.numJobs);
+                    if (t1 == t2) continue;
+                    Nowicki.Swap swap = new Nowicki.Swap(machine, t1, t2);
+                    assert evaluator.evaluate(swap) == evaluator.evaluateFully(swap) : "Wrong evaluation of " + swap;
+                }
+                if (swaps.isEmpty()) break;
+
+                // move to a random neighbor
+                Nowicki.Swap selected = swaps.get(random.nextInt(swaps.size()));
+                int expected = evaluator.evaluate(selected);
+                assert evaluator.apply(selected);
+                assert evaluator.makespan() == expected;
+                assert current.toSchedule().get().makespan() == expected;
+
+                // heads and tails are consistent with the makespan
+                for (int op = 0; op < instance.numOperations; op++) {
+                    assert evaluator.head(op) + instance.operationDuration(op) + evaluator.tail(op) <= expected;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMoveEstimates() throws IOException {
+        Random random = new Random(1);
+        for (String instanceName : new String[]{"ft06", "ft10", "la16", "orb07", "abz7", "ta21"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+            ResourceOrder current = new ResourceOrder(new GreedySolver(GreedySolver.Priority.EST_SPT).solve(instance, 0).get());
+            IncrementalEvaluator evaluator = new IncrementalEvaluator(instance);
+            evaluator.reset(current);
+            MoveEvaluator moveEvaluator = new MoveEvaluator(evaluator);
+
+            Nowicki nowicki = new Nowicki();
+            for (int iteration = 0; iteration < 30; iteration++) {
+                List<Nowicki.Swap> swaps = nowicki.allSwaps(current);
+                if (swaps.isEmpty()) break;
+                int[] estimates = new int[swaps.size()];
+                moveEvaluator.estimateAll(swaps, estimates);
+                for (int i = 0; i < swaps.size(); i++) {
+                    int exact = moveEvaluator.exact(swaps.get(i));
+                    // the estimate is a lower bound, that is exact when it reaches the current makespan
+                    assert estimates[i] <= exact;
+                    if (estimates[i] >= evaluator.makespan() && exact != IncrementalEvaluator.INFEASIBLE)
+                        assert estimates[i] == exact;
+                    // evaluation with a threshold is exact below the threshold
+                    int threshold = evaluator.makespan() + random.nextInt(21) - 10;
+                    int value = moveEvaluator.evaluate(swaps.get(i), threshold);
+                    assert value == exact || (value >= threshold && value <= exact);
+                }
+                evaluator.apply(swaps.get(random.nextInt(swaps.size())));
+            }
+            assert moveEvaluator.numOverestimates() == 0 : instanceName + " " + moveEvaluator;
+        }
+    }
+
+    @Test
+    public void testParallelSelection() throws IOException {
+        Random random = new Random(2);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String instanceName : new String[]{"ft10", "orb07", "ta21", "ta41"}) {
+                Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+                ResourceOrder current = new ResourceOrder(new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance, 0).get());
+                IncrementalEvaluator evaluator = new IncrementalEvaluator(instance);
+                evaluator.reset(current);
+                ParallelNeighborhoodEvaluator parallel = new ParallelNeighborhoodEvaluator(evaluator, pool, 1);
+
+                Nowicki nowicki = new Nowicki();
+                for (int iteration = 0; iteration < 20; iteration++) {
+                    List<Nowicki.Swap> swaps = nowicki.allSwaps(evaluator);
+                    if (swaps.isEmpty()) break;
+                    Predicate<Nowicki.Swap> taboo = swap -> (swap.machine + swap.t1) % 3 == 0;
+                    int aspiration = evaluator.makespan() - random.nextInt(5);
+
+                    // reference: first admissible swap with the lowest exact makespan
+                    int expected = -1;
+                    int expectedMakespan = IncrementalEvaluator.INFEASIBLE;
+                    for (int i = 0; i < swaps.size(); i++) {
+                        int makespan = evaluator.evaluateFully(swaps.get(i));
+                        if (makespan < expectedMakespan && (!taboo.test(swaps.get(i)) || makespan < aspiration)) {
+                            expected = i;
+                            expectedMakespan = makespan;
+                        }
+                    }
+
+                    int selected = parallel.selectBest(swaps, taboo, aspiration);
+                    assert selected == expected : "Different selections on " + instanceName;
+                    assert selected == -1 || parallel.selectedMakespan() == expectedMakespan;
+
+                    evaluator.apply(swaps.get(random.nextInt(swaps.size())));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSwapCursor() throws IOException {
+        Random random = new Random(3);
+        Nowicki nowicki = new Nowicki();
+        Nowicki.SwapCursor cursor = nowicki.newCursor();
+        for (String instanceName : new String[]{"aaa3", "ft10", "orb07", "ta21"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+            ResourceOrder current = new ResourceOrder(new GreedySolver(GreedySolver.Priority.SPT).solve(instance, 0).get());
+            IncrementalEvaluator evaluator = new IncrementalEvaluator(instance);
+            evaluator.reset(current);
+            for (int iteration = 0; iteration < 20; iteration++) {
+                // the cursor enumerates the swaps of all blocks, in order
+                List<Nowicki.Swap> expected = new ArrayList<>();
+                for (Nowicki.Block block : nowicki.blocksOfCriticalPath(evaluator)) {
+                    expected.addAll(nowicki.neighbors(block));
+                }
+                List<Nowicki.Swap> enumerated = new ArrayList<>();
+                cursor.reset(evaluator);
+                while (cursor.next()) {
+                    enumerated.add(new Nowicki.Swap(cursor.machine(), cursor.t1(), cursor.t2()));
+                }
+                assert !cursor.next();
+                assert enumerated.equals(expected) : "Different swaps on " + instanceName;
+                if (expected.isEmpty()) break;
+                evaluator.apply(expected.get(random.nextInt(expected.size())));
+            }
+        }
+    }
+
+    @Test
+    public void testFirstImprovementDescent() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Nowicki nowicki = new Nowicki();
+        Solver solver = new DescentSolver(nowicki, new GreedySolver(GreedySolver.Priority.SPT), Integer.MAX_VALUE, true);
+        Schedule result = solver.solve(instance, RunControl.unlimited()).get();
+        assert result.isValid();
+
+        // the result is a local optimum
+        ResourceOrder order = new ResourceOrder(result);
+        IncrementalEvaluator evaluator = new IncrementalEvaluator(instance);
+        evaluator.reset(order);
+        for (Nowicki.Swap swap : nowicki.allSwaps(evaluator)) {
+            assert evaluator.evaluate(swap) >= result.makespan();
+        }
+    }
 }
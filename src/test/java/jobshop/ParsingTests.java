@@ -3,7 +3,13 @@ package jobshop;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Scanner;
+import java.util.stream.Collectors;
 
 public class ParsingTests {
 
@@ -26,6 +32,30 @@ public class ParsingTests {
         assert instance.numMachines == 5;
     }
 
+    /** Test that the machine lookup table and operation ids are consistent with the parsed data. */
+    @Test
+    public void testMachineIndex() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+
+        assert instance.numOperations == 36;
+        for (int job = 0; job < instance.numJobs; job++) {
+            for (int task = 0; task < instance.numTasks; task++) {
+                int machine = instance.machine(job, task);
+                assert instance.task_with_machine(job, machine) == task;
+
+                int op = instance.operation(job, task);
+                assert instance.operationJob(op) == job && instance.operationTask(op) == task;
+                assert instance.operationMachine(op) == machine;
+                assert instance.operationDuration(op) == instance.duration(job, task);
+                assert instance.operationOnMachine(job, machine) == op;
+            }
+        }
+        // first job of ft06 : 2 1  0 3  1 6  3 7  5 3  4 6
+        assert instance.task_with_machine(0, 2) == 0;
+        assert instance.task_with_machine(0, 4) == 5;
+        assert instance.duration(0, 3) == 7;
+    }
+
     /** Test that we can successfully read all known instances. */
     @Test
     public void testAllParsable() throws IOException {
@@ -36,5 +66,72 @@ public class ParsingTests {
 
     }
 
+    /** Test that bytes above 127, such as accented letters in a comment, are not taken for the end of the file. */
+    @Test
+    public void testNonAsciiComments() throws IOException {
+        Path path = Files.createTempFile("jobshop", ".txt");
+        try {
+            byte[] comment = {'#', ' ', (byte) 0xFF, (byte) 0xE9, ' ', 'x', '\n'};
+            byte[] data = "2 1\n0 5\n0 7\n".getBytes(StandardCharsets.US_ASCII);
+            byte[] content = new byte[comment.length + data.length];
+            System.arraycopy(comment, 0, content, 0, comment.length);
+            System.arraycopy(data, 0, content, comment.length, data.length);
+            Files.write(path, content);
+
+            Instance instance = Instance.fromFile(path);
+            assert instance.numJobs == 2 && instance.numTasks == 1;
+            assert instance.duration(1, 0) == 7;
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /** Reference line-based parser, used to check that the streaming parser produces the same instances. */
+    private static Instance parseWithScanner(Path path) throws IOException {
+        Iterator<String> lines = Files.readAllLines(path).stream()
+                .filter(l -> !l.startsWith("#"))
+                .collect(Collectors.toList())
+                .iterator();
+
+        Scanner header = new Scanner(lines.next());
+        int numJobs = header.nextInt();
+        int numTasks = header.nextInt();
+        Instance pb = new Instance(path.getFileName().toString(), numJobs, numTasks);
+
+        for(int job = 0 ; job<numJobs ; job++) {
+            Scanner line = new Scanner(lines.next());
+            for(int task = 0 ; task < numTasks ; task++) {
+                pb.machines[pb.operation(job, task)] = line.nextInt();
+                pb.durations[pb.operation(job, task)] = line.nextInt();
+            }
+        }
+        pb.index();
+        return pb;
+    }
+
+    /** Test that the streaming parser and the binary format both give exactly the same instances. */
+    @Test
+    public void testStreamingAndBinaryParsing() throws IOException {
+        Path binDir = Files.createTempDirectory("jobshop-bin");
+        try {
+            for (String instanceName : BestKnownResults.instances) {
+                Path path = Paths.get("instances", instanceName);
+                Instance reference = parseWithScanner(path);
+                Instance streamed = Instance.fromFile(path);
+                assert reference.equals(streamed) : "Streaming parser differs on " + instanceName;
+
+                Path binPath = binDir.resolve(instanceName);
+                streamed.toBinaryFile(binPath);
+                Instance binary = Instance.fromBinaryFile(binPath);
+                assert reference.equals(binary) : "Binary format differs on " + instanceName;
+                assert binary.task_with_machine(0, binary.machine(0, 0)) == 0;
 
+                assert reference.equals(Instance.load(path));
+                assert reference.equals(Instance.load(binPath));
+                Files.delete(binPath);
+            }
+        } finally {
+            Files.delete(binDir);
+        }
+    }
 }
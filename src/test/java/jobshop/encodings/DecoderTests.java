@@ -0,0 +1,187 @@
+package jobshop.encodings;
+
+import jobshop.BestKnownResults;
+import jobshop.Instance;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+public class DecoderTests {
+
+    /** Reference decoder, that schedules at each step the first task that has no unscheduled predecessor. */
+    static Optional<Schedule> referenceSchedule(ResourceOrder order) {
+        Instance instance = order.instance;
+        Schedule schedule = new Schedule(instance);
+        int[] nextToScheduleByJob = new int[instance.numJobs];
+        int[] nextToScheduleByMachine = new int[instance.numMachines];
+        int[] releaseTimeOfMachine = new int[instance.numMachines];
+
+        for(int scheduled = 0 ; scheduled < instance.numOperations ; scheduled++) {
+            Task t = null;
+            for(int m = 0 ; m < instance.numMachines && t == null ; m++) {
+                if(nextToScheduleByMachine[m] < instance.numJobs) {
+                    Task candidate = order.getTaskOfMachine(m, nextToScheduleByMachine[m]);
+                    if(candidate.task == nextToScheduleByJob[candidate.job])
+                        t = candidate;
+                }
+            }
+            if(t == null)
+                return Optional.empty();
+
+            int machine = instance.machine(t);
+            int est = t.task == 0 ? 0 : schedule.endTime(t.job, t.task-1);
+            est = Math.max(est, releaseTimeOfMachine[machine]);
+            schedule.setStartTime(t.job, t.task, est);
+            nextToScheduleByJob[t.job]++;
+            nextToScheduleByMachine[machine]++;
+            releaseTimeOfMachine[machine] = est + instance.duration(t);
+        }
+        return Optional.of(schedule);
+    }
+
+    /** Builds a valid resource order by dispatching the tasks of randomly selected jobs. */
+    static ResourceOrder randomValidOrder(Instance instance, Random random) {
+        ResourceOrder order = new ResourceOrder(instance);
+        int[] nextTask = new int[instance.numJobs];
+        int remaining = instance.numOperations;
+        while(remaining > 0) {
+            int job = random.nextInt(instance.numJobs);
+            if(nextTask[job] < instance.numTasks) {
+                Task t = new Task(job, nextTask[job]++);
+                order.addTaskToMachine(instance.machine(t), t);
+                remaining--;
+            }
+        }
+        return order;
+    }
+
+    /** Builds a resource order with a random permutation of the jobs on each machine (usually cyclic). */
+    static ResourceOrder randomOrder(Instance instance, Random random) {
+        ResourceOrder order = new ResourceOrder(instance);
+        int[] jobs = new int[instance.numJobs];
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int j = 0 ; j < jobs.length ; j++) {
+                int k = random.nextInt(j + 1);
+                jobs[j] = jobs[k];
+                jobs[k] = j;
+            }
+            for(int job : jobs) {
+                order.addTaskToMachine(m, new Task(job, instance.task_with_machine(job, m)));
+            }
+        }
+        return order;
+    }
+
+    @Test
+    public void testSameScheduleAsReference() throws IOException {
+        Random random = new Random(0);
+        for(String instanceName : BestKnownResults.instancesMatching("")) {
+            if(instanceName.startsWith("ta") && instanceName.compareTo("ta10") > 0)
+                continue; // keep the test fast
+            Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+            for(int i = 0 ; i < 5 ; i++) {
+                ResourceOrder valid = randomValidOrder(instance, random);
+                Optional<Schedule> schedule = valid.toSchedule();
+                assert schedule.isPresent() && schedule.get().isValid();
+                assert schedule.equals(referenceSchedule(valid)) : "Different schedules on " + instanceName;
+                // the decoder kept by the order is reused after a change
+                valid.swapTasks(0, 0, instance.numJobs - 1);
+                assert valid.toSchedule().equals(referenceSchedule(valid)) : "Different results after a swap on " + instanceName;
+
+                ResourceOrder any = randomOrder(instance, random);
+                assert any.toSchedule().equals(referenceSchedule(any)) : "Different results on " + instanceName;
+            }
+        }
+    }
+
+    @Test
+    public void testDecoderReuse() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        Random random = new Random(1);
+        TopologicalDecoder decoder = new TopologicalDecoder(instance);
+        for(int i = 0 ; i < 20 ; i++) {
+            ResourceOrder order = i % 2 == 0 ? randomValidOrder(instance, random) : randomOrder(instance, random);
+            Optional<Schedule> reference = referenceSchedule(order);
+            assert decoder.decode(order) == reference.isPresent();
+            if(reference.isPresent()) {
+                assert decoder.makespan() == reference.get().makespan();
+                assert decoder.toSchedule().equals(reference.get());
+            } else {
+                assert decoder.makespan() == -1;
+            }
+        }
+        // an incomplete resource order cannot be decoded
+        assert !decoder.decode(new ResourceOrder(instance));
+    }
+
+    @Test
+    public void testCriticalPath() throws IOException {
+        Random random = new Random(2);
+        for(String instanceName : new String[]{"aaa1", "ft06", "ft10", "la21", "orb07", "ta01"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+            TopologicalDecoder decoder = new TopologicalDecoder(instance);
+            int[] path = new int[instance.numOperations];
+            for(int i = 0 ; i < 10 ; i++) {
+                ResourceOrder order = randomValidOrder(instance, random);
+                assert decoder.decode(order);
+                Schedule schedule = decoder.toSchedule();
+
+                int length = decoder.criticalPath(path);
+                List<Task> criticalPath = new ArrayList<>();
+                for(int k = 0 ; k < length ; k++) {
+                    criticalPath.add(new Task(instance.operationJob(path[k]), instance.operationTask(path[k])));
+                }
+                assert schedule.isCriticalPath(criticalPath);
+                assert criticalPath.equals(schedule.criticalPath()) : "Different critical paths on " + instanceName;
+
+                for(int m = 0 ; m < instance.numMachines ; m++) {
+                    for(int k = 0 ; k < instance.numJobs ; k++) {
+                        assert decoder.machinePosition(order.operationAt(m, k)) == k;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testJobRepetition() throws IOException {
+        Random random = new Random(3);
+        for(String instanceName : new String[]{"aaa1", "ft06", "ft10", "la21", "orb07", "ta01"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+            JobRepetition.Decoder decoder = new JobRepetition.Decoder(instance);
+            int[] sequences = new int[2 * instance.numOperations];
+            for(int i = 0 ; i < 10 ; i++) {
+                // random sequence, stored after another one
+                JobRepetition.fillDefault(instance, sequences, instance.numOperations);
+                for(int k = instance.numOperations - 1 ; k > 0 ; k--) {
+                    int other = instance.numOperations + random.nextInt(k + 1);
+                    int tmp = sequences[instance.numOperations + k];
+                    sequences[instance.numOperations + k] = sequences[other];
+                    sequences[other] = tmp;
+                }
+                assert JobRepetition.isValidSequence(instance, sequences, instance.numOperations);
+
+                int semiActive = decoder.decode(sequences, instance.numOperations, false);
+                Schedule schedule = decoder.toSchedule();
+                assert schedule.isValid() && schedule.makespan() == semiActive;
+                // the resource order of the decoded schedule gives back the same schedule
+                assert decoder.toResourceOrder().toSchedule().equals(Optional.of(schedule));
+                // a semi-active schedule is encoded by its tasks sorted by start time
+                JobRepetition encoding = new JobRepetition(schedule);
+                assert encoding.toSchedule().equals(Optional.of(schedule));
+
+                int active = decoder.decode(sequences, instance.numOperations, true);
+                Schedule activeSchedule = decoder.toSchedule();
+                assert activeSchedule.isValid() && activeSchedule.makespan() == active;
+                assert decoder.toResourceOrder().toSchedule().equals(Optional.of(activeSchedule));
+                assert active <= semiActive : "Active decoding worse on " + instanceName;
+                assert new JobRepetition(instance, sequences, instance.numOperations).toActiveSchedule().equals(activeSchedule);
+            }
+        }
+    }
+}
@@ -101,4 +101,33 @@ public class ManualEncodingTests {
 
         assert manualRO.toSchedule().isEmpty();
     }
+
+    @Test
+    public void testResourceOrderCopyAndEquality() {
+        ResourceOrder manualRO = new ResourceOrder(instance);
+        manualRO.addTaskToMachine(0,new Task(0,0));
+        manualRO.addTaskToMachine(0,new Task(1,1));
+        manualRO.addTaskToMachine(1,new Task(1,0));
+        manualRO.addTaskToMachine(1,new Task(0,1));
+        manualRO.addTaskToMachine(2,new Task(0,2));
+        manualRO.addTaskToMachine(2,new Task(1,2));
+
+        // equality is based on the content of the resource order
+        ResourceOrder fromSchedule = new ResourceOrder(this.reference);
+        assert fromSchedule.equals(manualRO);
+        assert fromSchedule.hashCode() == manualRO.hashCode();
+        assert fromSchedule.getTaskOfMachine(1, 1).equals(new Task(0, 1));
+        assert fromSchedule.getJobOfMachine(1, 1) == 0;
+
+        // modifying a copy does not modify the original
+        ResourceOrder copy = manualRO.copy();
+        copy.swapTasks(2, 0, 1);
+        assert !copy.equals(manualRO);
+        assert copy.getTaskOfMachine(2, 0).equals(new Task(1, 2));
+        assert manualRO.getTaskOfMachine(2, 0).equals(new Task(0, 2));
+        assert copy.toSchedule().get().makespan() == 11;
+
+        copy.copyFrom(manualRO);
+        assert copy.equals(manualRO);
+    }
 }
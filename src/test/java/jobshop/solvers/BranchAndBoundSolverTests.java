@@ -0,0 +1,46 @@
+package jobshop.solvers;
+
+
+import jobshop.BestKnownResults;
+import jobshop.Instance;
+import jobshop.encodings.Schedule;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+public class BranchAndBoundSolverTests {
+
+    @Test
+    public void testBranchAndBound() throws IOException {
+        for (String instanceName : new String[]{"aaa1", "aaa2", "aaa3", "ft06", "la04"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+            BranchAndBoundSolver solver = new BranchAndBoundSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT), 2, null);
+            Optional<Schedule> result = solver.solve(instance, RunControl.unlimited());
+            OptimalityCertificate certificate = solver.lastCertificate();
+            Assert.assertTrue(result.isPresent() && result.get().isValid());
+            Assert.assertTrue(certificate.verify() && certificate.isOptimal() && certificate.isConsistentWithBestKnown());
+            Assert.assertEquals(BestKnownResults.of(instanceName), certificate.makespan);
+
+            // the certificate can be checked after being written
+            Path file = Files.createTempFile(instanceName, ".certificate");
+            certificate.write(file);
+            OptimalityCertificate read = OptimalityCertificate.read(file, instance);
+            Files.delete(file);
+            Assert.assertTrue(read.verify() && read.isOptimal());
+            Assert.assertEquals(certificate.schedule, read.schedule);
+        }
+
+        // a stopped search reports a valid lower bound
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        BranchAndBoundSolver solver = new BranchAndBoundSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT), 1, null);
+        Optional<Schedule> result = solver.solve(instance, RunControl.unlimited().withMaxIterations(200));
+        OptimalityCertificate certificate = solver.lastCertificate();
+        Assert.assertTrue(result.isPresent() && certificate.verify() && certificate.isConsistentWithBestKnown());
+        Assert.assertTrue(certificate.lowerBound <= 930 && !certificate.isOptimal() && certificate.gap() > 0);
+    }
+}
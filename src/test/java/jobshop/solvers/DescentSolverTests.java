@@ -34,6 +34,9 @@ public class DescentSolverTests {
         System.out.println("============= Descent ===============");
         Assert.assertTrue(result.isPresent());
         System.out.println(result.toString());
+
+        // the local search of a GRASP has no base solver
+        Assert.assertEquals(1, new DescentSolver(new Nowicki(), null).numThreads());
     }
 
 }
@@ -0,0 +1,36 @@
+package jobshop.solvers;
+
+
+import jobshop.Instance;
+import jobshop.encodings.Schedule;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+public class GeneticSolverTests {
+
+    @Test
+    public void testGeneticSolver() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Solver base = new GreedySolver(GreedySolver.Priority.EST_LRPT);
+        int initial = base.solve(instance, RunControl.unlimited()).get().makespan();
+
+        // the result of a number of generations does not depend on the number of threads
+        Optional<Schedule> sequential = new GeneticSolver(base, 30, 2, 0.2, true, 1, 5)
+                .solve(instance, RunControl.unlimited().withMaxIterations(50));
+        Optional<Schedule> parallel = new GeneticSolver(base, 30, 2, 0.2, true, 3, 5)
+                .solve(instance, RunControl.unlimited().withMaxIterations(50));
+        Assert.assertTrue(sequential.isPresent() && sequential.get().isValid());
+        Assert.assertEquals(sequential.get(), parallel.get());
+        // the elite keeps the solution of the base solver or a better one
+        Assert.assertTrue(sequential.get().makespan() <= initial);
+
+        GeneticSolver withoutBase = new GeneticSolver(null, 20, 1, 0.5, false, 2, 0);
+        Assert.assertEquals(2, withoutBase.numThreads());
+        Optional<Schedule> semiActive = withoutBase.solve(instance, RunControl.unlimited().withMaxIterations(10));
+        Assert.assertTrue(semiActive.isPresent() && semiActive.get().isValid());
+    }
+}
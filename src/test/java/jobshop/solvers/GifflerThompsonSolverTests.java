@@ -0,0 +1,78 @@
+package jobshop.solvers;
+
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Schedule;
+import jobshop.encodings.Task;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+public class GifflerThompsonSolverTests {
+
+    /** True if no task of the schedule can be moved into an idle period of its machine, before its start time. */
+    private static boolean isActive(Schedule schedule, Instance instance) {
+        for (int job = 0; job < instance.numJobs; job++) {
+            for (int task = 0; task < instance.numTasks; task++) {
+                int duration = instance.duration(job, task);
+                int release = task == 0 ? 0 : schedule.endTime(job, task - 1);
+                int start = schedule.startTime(job, task);
+                int machine = instance.machine(job, task);
+                // tasks of the machine that end before the start of this one, by start time
+                List<Task> before = new ArrayList<>();
+                for (int other = 0; other < instance.numJobs; other++) {
+                    Task t = new Task(other, instance.task_with_machine(other, machine));
+                    if (other != job && instance.duration(t) > 0 && schedule.endTime(t) <= start)
+                        before.add(t);
+                }
+                before.sort(Comparator.comparingInt(schedule::startTime));
+                int idleStart = 0;
+                for (Task t : before) {
+                    if (Math.max(idleStart, release) + duration <= schedule.startTime(t) && Math.max(idleStart, release) < start)
+                        return false;
+                    idleStart = schedule.endTime(t);
+                }
+            }
+        }
+        return true;
+    }
+
+    @Test
+    public void testGifflerThompson() throws IOException {
+        Random random = new Random(0);
+        for (String instanceName : new String[]{"aaa1", "ft06", "ft10", "la01", "la21", "orb07"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+            for (GreedySolver.Priority priority : GreedySolver.Priority.values()) {
+                Optional<Schedule> schedule = new GifflerThompsonSolver(priority).solve(instance, RunControl.unlimited());
+                Assert.assertTrue(schedule.isPresent() && schedule.get().isValid());
+                Assert.assertTrue(priority + " on " + instanceName, isActive(schedule.get(), instance));
+            }
+
+            for (int i = 0; i < 5; i++) {
+                // resource order with a random permutation of the jobs on each machine, usually not valid
+                ResourceOrder order = new ResourceOrder(instance);
+                for (int m = 0; m < instance.numMachines; m++) {
+                    List<Integer> jobs = new ArrayList<>();
+                    for (int job = 0; job < instance.numJobs; job++) jobs.add(job);
+                    Collections.shuffle(jobs, random);
+                    for (int job : jobs) order.addTaskToMachine(m, new Task(job, instance.task_with_machine(job, m)));
+                }
+                ResourceOrder active = GifflerThompsonSolver.activeDecode(order);
+                Optional<Schedule> schedule = active.toSchedule();
+                Assert.assertTrue(schedule.isPresent() && schedule.get().isValid());
+                Assert.assertTrue(isActive(schedule.get(), instance));
+                // an active order is its own active decoding
+                Assert.assertEquals(active, GifflerThompsonSolver.activeDecode(active));
+            }
+        }
+    }
+}
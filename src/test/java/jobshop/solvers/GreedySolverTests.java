@@ -1,7 +1,9 @@
 package jobshop.solvers;
 
 
+import jobshop.BestKnownResults;
 import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
 import jobshop.encodings.Schedule;
 import jobshop.encodings.Task;
 import org.junit.Assert;
@@ -11,6 +13,7 @@ import java.lang.reflect.Array;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class GreedySolverTests {
 
@@ -283,4 +286,113 @@ public class GreedySolverTests {
 
 
     }
+
+    /** Construction with the list-based selection methods, as done before the introduction of the dispatcher. */
+    private static ResourceOrder listBasedConstruction(GreedySolver solver, Instance instance) {
+        ResourceOrder ro = new ResourceOrder(instance);
+        ArrayList<Task> doableTasks = solver.InitDoableTasks(instance);
+        ArrayList<Task> lastDoneTasks = solver.InitLastDoneTasks(instance);
+        ArrayList<Integer> finishingTimeMachines = new ArrayList<>();
+        ArrayList<Integer> jobCurrentTime = new ArrayList<>();
+        solver.InitESTArrays(instance, finishingTimeMachines, jobCurrentTime);
+        while (!solver.noJobLeft(instance.numJobs, doableTasks)) {
+            Task task;
+            ESTReturn res = null;
+            switch (solver.priority) {
+                case SPT: task = solver.SPTTask(instance, doableTasks); break;
+                case LPT: task = solver.LPTTask(instance, doableTasks); break;
+                case SRPT: task = solver.SRPTTask(instance, doableTasks, lastDoneTasks); break;
+                case LRPT: task = solver.LRPTTask(instance, doableTasks, lastDoneTasks); break;
+                case EST_SPT:
+                    res = solver.EST_SPTTask(instance, doableTasks, finishingTimeMachines, jobCurrentTime);
+                    task = res.getTask();
+                    break;
+                default:
+                    res = solver.EST_LRPTTask(instance, doableTasks, lastDoneTasks, finishingTimeMachines, jobCurrentTime);
+                    task = res.getTask();
+            }
+            if (res != null) {
+                int end = res.getStartingTime() + instance.duration(task);
+                jobCurrentTime.set(task.job, end);
+                finishingTimeMachines.set(instance.machine(task), end);
+            }
+            ro.addTaskToMachine(instance.machine(task), task);
+            solver.UpdateDoableTasks(instance, doableTasks, task);
+            lastDoneTasks.set(task.job, task);
+        }
+        return ro;
+    }
+
+    /** Construction with the selection on primitive arrays, without randomization. */
+    private static ResourceOrder primitiveConstruction(GreedySolver solver, Instance instance) {
+        ResourceOrder ro = new ResourceOrder(instance);
+        int[] nextTask = new int[instance.numJobs];
+        int[] remainingWork = new int[instance.numJobs];
+        int[] machineFree = new int[instance.numMachines];
+        int[] jobReady = new int[instance.numJobs];
+        for (int job = 0; job < instance.numJobs; job++) {
+            for (int task = 0; task < instance.numTasks; task++) {
+                remainingWork[job] += instance.duration(job, task);
+            }
+        }
+        int job;
+        while ((job = solver.selectJob(instance, nextTask, remainingWork, machineFree, jobReady)) != -1) {
+            int task = nextTask[job]++;
+            int machine = instance.machine(job, task);
+            int end = Math.max(jobReady[job], machineFree[machine]) + instance.duration(job, task);
+            jobReady[job] = end;
+            machineFree[machine] = end;
+            remainingWork[job] -= instance.duration(job, task);
+            ro.addTaskToMachine(machine, new Task(job, task));
+        }
+        return ro;
+    }
+
+    @Test
+    public void testDispatcherSameAsListSelection() throws IOException {
+        for (String instanceName : BestKnownResults.instancesMatching("")) {
+            if (instanceName.startsWith("ta") && instanceName.compareTo("ta20") > 0)
+                continue; // keep the test fast
+            Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+            for (GreedySolver.Priority priority : GreedySolver.Priority.values()) {
+                if ((priority == GreedySolver.Priority.SRPT || priority == GreedySolver.Priority.LRPT) && instanceName.equals("orb07"))
+                    continue; // the list-based selection fails when a job only has tasks of zero duration left
+                GreedySolver solver = new GreedySolver(priority);
+                ResourceOrder expected = listBasedConstruction(solver, instance);
+                ResourceOrder dispatched = new Dispatcher(instance, priority).build();
+                Assert.assertEquals(priority + " on " + instanceName, expected, dispatched);
+                Assert.assertEquals(priority + " on " + instanceName, expected, primitiveConstruction(solver, instance));
+            }
+        }
+    }
+
+    @Test
+    public void testGrasp() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+
+        // with a single thread, runs with the same seed and budget build the same solutions
+        GreedyRandomSolver grasp = new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT, 3, 1, false, 42);
+        Optional<Schedule> first = grasp.solve(instance, RunControl.unlimited().withMaxIterations(50));
+        Assert.assertEquals(50, grasp.lastConstructions());
+        Assert.assertTrue(grasp.constructionsPerSecond() > 0);
+        Optional<Schedule> second = grasp.solve(instance, RunControl.unlimited().withMaxIterations(50));
+        Assert.assertTrue(first.isPresent() && first.get().isValid());
+        Assert.assertEquals(first.get().makespan(), second.get().makespan());
+
+        // a candidate list of one job gives the greedy solution
+        GreedyRandomSolver greedy = new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT, 1, 2, false, 0);
+        Optional<Schedule> deterministic = greedy.solve(instance, RunControl.unlimited().withMaxIterations(10));
+        Assert.assertEquals(new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance, RunControl.unlimited()).get().makespan(),
+                deterministic.get().makespan());
+
+        // parallel constructions followed by a descent, until the deadline
+        GreedyRandomSolver graspDescent = new GreedyRandomSolver(GreedySolver.Priority.EST_SPT, 3, 2, true, 0);
+        RunControl control = RunControl.withTimeout(200, TimeUnit.MILLISECONDS);
+        Optional<Schedule> result = graspDescent.solve(instance, control);
+        Assert.assertTrue(result.isPresent() && result.get().isValid());
+        Assert.assertEquals(RunControl.StopReason.DEADLINE, control.stopReason());
+        Assert.assertTrue(graspDescent.lastConstructions() >= 1);
+        // each thread runs its own local search
+        Assert.assertEquals(3, new GreedyRandomSolver(GreedySolver.Priority.EST_LRPT, 3, 3, true, 0).numThreads());
+    }
 }
@@ -0,0 +1,53 @@
+package jobshop.solvers;
+
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Schedule;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+public class ParallelTabooSolverTests {
+
+    @Test
+    public void sharedIncumbentKeepsBest() throws Exception {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        ResourceOrder order = new ResourceOrder(new BasicSolver().solve(instance, 100).get());
+        SharedIncumbent incumbent = new SharedIncumbent();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int makespan = 1000 + offset; makespan > 100; makespan -= threads.length) {
+                    incumbent.offer(order, makespan);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(101, incumbent.makespan());
+        Assert.assertFalse(incumbent.offer(order, 101));
+        Assert.assertNotSame(order, incumbent.get().order);
+    }
+
+    @Test
+    public void testParallelTabooSolver() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        int greedy = new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance, 100).get().makespan();
+        ParallelTabooSolver solver = new ParallelTabooSolver(4, 10, 200, Integer.MAX_VALUE, 0);
+
+        Optional<Schedule> result = solver.solve(instance, System.currentTimeMillis() + 300);
+        Assert.assertTrue(result.isPresent() && result.get().isValid());
+        Assert.assertTrue(result.get().makespan() < greedy);
+
+        // a solution is returned even if the deadline is already met
+        Optional<Schedule> expired = solver.solve(instance, 0);
+        Assert.assertTrue(expired.isPresent() && expired.get().isValid());
+    }
+}
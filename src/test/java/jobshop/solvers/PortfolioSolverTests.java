@@ -0,0 +1,46 @@
+package jobshop.solvers;
+
+
+import jobshop.Instance;
+import jobshop.encodings.Schedule;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+public class PortfolioSolverTests {
+
+    @Test
+    public void testPortfolio() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        PortfolioSolver solver = PortfolioSolver.of(List.of("taboo_est_lrpt", "descent_random_lrpt", "est_spt"), 0);
+        Assert.assertEquals(3, solver.numThreads());
+        Assert.assertEquals(5, PortfolioSolver.of(List.of("est_spt", "taboo_parallel_4"), 0).numThreads());
+        Optional<Schedule> result = solver.solve(instance, System.currentTimeMillis() + 500);
+        Assert.assertTrue(result.isPresent() && result.get().isValid());
+        // the portfolio is at least as good as each member, and the taboo search restarts from the incumbent
+        int[] members = solver.lastMemberMakespans();
+        Assert.assertEquals(3, members.length);
+        for (int makespan : members) {
+            Assert.assertTrue(result.get().makespan() <= makespan);
+        }
+
+        // the race stops as soon as a member reaches the lower bound of la01 (its optimum)
+        instance = Instance.fromFile(Paths.get("instances/la01"));
+        long start = System.currentTimeMillis();
+        RunControl control = RunControl.withTimeout(60, TimeUnit.SECONDS);
+        result = Solver.getSolver("portfolio:taboo_est_lrpt,sa_est_lrpt").solve(instance, control);
+        Assert.assertTrue(result.isPresent() && result.get().isValid());
+        Assert.assertEquals(666, result.get().makespan());
+        Assert.assertNotEquals(RunControl.StopReason.DEADLINE, control.stopReason());
+        Assert.assertTrue(System.currentTimeMillis() - start < 10_000);
+
+        // a solution is returned even if the deadline is already met
+        Optional<Schedule> expired = new PortfolioSolver().solve(instance, 0);
+        Assert.assertTrue(expired.isPresent() && expired.get().isValid());
+    }
+}
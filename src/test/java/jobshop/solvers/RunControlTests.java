@@ -0,0 +1,188 @@
+package jobshop.solvers;
+
+import jobshop.BestKnownResults;
+import jobshop.Instance;
+import jobshop.encodings.Schedule;
+import jobshop.solvers.neighborhood.Nowicki;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+public class RunControlTests {
+
+    @Test
+    public void testBudgetsAndCancellation() {
+        RunControl iterations = RunControl.unlimited().withMaxIterations(3);
+        for (int i = 0; i < 2; i++) {
+            Assert.assertFalse(iterations.shouldStop());
+            iterations.countIteration();
+        }
+        Assert.assertFalse(iterations.shouldStop());
+        iterations.countIteration();
+        Assert.assertTrue(iterations.shouldStop());
+        Assert.assertEquals(RunControl.StopReason.ITERATIONS, iterations.stopReason());
+
+        RunControl target = RunControl.unlimited().withTargetMakespan(50).withMaxEvaluations(1000);
+        target.reportMakespan(51);
+        target.countEvaluations(999);
+        Assert.assertFalse(target.shouldStop());
+        target.reportMakespan(50);
+        target.countEvaluations(1);
+        Assert.assertTrue(target.shouldStop());
+        Assert.assertEquals(RunControl.StopReason.TARGET, target.stopReason());
+
+        RunControl bounded = RunControl.unlimited().withLowerBound(40);
+        Assert.assertEquals(40, bounded.lowerBound());
+        bounded.reportMakespan(41);
+        Assert.assertFalse(bounded.shouldStop());
+        bounded.reportMakespan(40);
+        Assert.assertEquals(RunControl.StopReason.TARGET, bounded.stopReason());
+
+        RunControl cancelled = RunControl.withTimeout(1, TimeUnit.HOURS);
+        Assert.assertFalse(cancelled.shouldStop());
+        cancelled.cancel();
+        Assert.assertTrue(cancelled.shouldStop());
+        Assert.assertEquals(RunControl.StopReason.CANCELLED, cancelled.stopReason());
+
+        RunControl expired = RunControl.withDeadline(System.currentTimeMillis() - 1);
+        Assert.assertTrue(expired.shouldStop());
+        Assert.assertEquals(RunControl.StopReason.DEADLINE, expired.stopReason());
+    }
+
+    @Test
+    public void testSolversRespectControl() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Solver[] solvers = {
+                new GreedyRandomSolver(GreedySolver.Priority.EST_SPT, 1000),
+                new DescentSolver(new Nowicki(), new GreedySolver(GreedySolver.Priority.SPT)),
+                new TabooSolver(new GreedySolver(GreedySolver.Priority.EST_SPT), Integer.MAX_VALUE, 10),
+                new SimulatedAnnealingSolver(new GreedySolver(GreedySolver.Priority.EST_SPT), 0)
+        };
+        for (Solver solver : solvers) {
+            // a solution is returned even if the deadline is already met
+            Optional<Schedule> expired = solver.solve(instance, RunControl.withDeadline(0));
+            Assert.assertTrue(expired.isPresent() && expired.get().isValid());
+
+            RunControl control = RunControl.unlimited().withMaxIterations(5);
+            Optional<Schedule> result = solver.solve(instance, control);
+            Assert.assertTrue(result.isPresent() && result.get().isValid());
+            Assert.assertTrue(control.iterations() <= 5);
+        }
+
+        // the taboo search runs until its deadline
+        long start = System.nanoTime();
+        RunControl control = RunControl.withTimeout(200, TimeUnit.MILLISECONDS);
+        solvers[2].solve(instance, control);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertEquals(RunControl.StopReason.DEADLINE, control.stopReason());
+        Assert.assertTrue(elapsed >= 200 && elapsed < 1000);
+    }
+
+    @Test
+    public void testLowerBound() throws IOException {
+        List<String> names = BestKnownResults.instancesMatching("");
+        for (String name : names) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            LowerBound bound = LowerBound.of(instance);
+            Assert.assertTrue(name + " " + bound, bound.machineBound <= bound.oneMachineBound);
+            Assert.assertTrue(name + " " + bound, bound.value() <= BestKnownResults.of(name));
+        }
+
+        // the bound of la01 is its optimum: the taboo search stops as soon as it reaches it
+        Instance instance = Instance.fromFile(Paths.get("instances/la01"));
+        Assert.assertEquals(666, LowerBound.of(instance).value());
+        long start = System.nanoTime();
+        long deadline = System.currentTimeMillis() + 60_000;
+        Optional<Schedule> result = new TabooSolver(new GreedySolver(GreedySolver.Priority.EST_LRPT), Integer.MAX_VALUE, 10)
+                .solve(instance, deadline);
+        Assert.assertTrue(result.isPresent() && result.get().isValid());
+        Assert.assertEquals(666, result.get().makespan());
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 10_000);
+    }
+
+    @Test
+    public void testAnytimeSolutions() throws Exception {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Solver solver = new TabooSolver(new GreedySolver(GreedySolver.Priority.EST_SPT), Integer.MAX_VALUE, 10);
+
+        // the listener receives valid solutions with strictly decreasing makespans, the last one being the result
+        List<SolutionListener.Improvement> improvements = new ArrayList<>();
+        Optional<Schedule> result = solver.solve(instance, RunControl.withTimeout(200, TimeUnit.MILLISECONDS).withListener(improvements::add));
+        Assert.assertTrue(result.isPresent() && result.get().isValid());
+        Assert.assertTrue(improvements.size() > 1);
+        for (int i = 0; i < improvements.size(); i++) {
+            SolutionListener.Improvement improvement = improvements.get(i);
+            Assert.assertTrue(improvement.schedule.isValid());
+            Assert.assertEquals(improvement.makespan, improvement.schedule.makespan());
+            if (i > 0) {
+                Assert.assertTrue(improvement.makespan < improvements.get(i - 1).makespan);
+                Assert.assertTrue(improvement.elapsedNanos >= improvements.get(i - 1).elapsedNanos);
+            }
+        }
+        Assert.assertEquals(result.get().makespan(), improvements.get(improvements.size() - 1).makespan);
+
+        // a slow subscriber of a publisher skips improvements but ends with the best one
+        List<Integer> received = new ArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        Flow.Subscriber<SolutionListener.Improvement> subscriber = new Flow.Subscriber<>() {
+            Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(SolutionListener.Improvement item) {
+                received.add(item.makespan);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                Assert.fail(throwable.toString());
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (SolutionPublisher publisher = new SolutionPublisher(executor)) {
+            publisher.subscribe(subscriber);
+            result = solver.solve(instance, RunControl.withTimeout(200, TimeUnit.MILLISECONDS).withListener(publisher));
+        }
+        Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        Assert.assertFalse(received.isEmpty());
+        for (int i = 1; i < received.size(); i++) {
+            Assert.assertTrue(received.get(i) < received.get(i - 1));
+        }
+        Assert.assertEquals(result.get().makespan(), (int) received.get(received.size() - 1));
+
+        // constructive solvers publish their result, and the listener cannot be changed once the run started
+        improvements.clear();
+        RunControl control = RunControl.unlimited().withListener(improvements::add);
+        result = new GreedySolver(GreedySolver.Priority.EST_LRPT).solve(instance, control);
+        Assert.assertEquals(1, improvements.size());
+        Assert.assertEquals(result.get().makespan(), improvements.get(0).makespan);
+        Assert.assertThrows(IllegalStateException.class, () -> control.withListener(improvements::add));
+    }
+}
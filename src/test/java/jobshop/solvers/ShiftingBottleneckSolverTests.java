@@ -0,0 +1,64 @@
+package jobshop.solvers;
+
+
+import jobshop.Instance;
+import jobshop.encodings.Schedule;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.Random;
+
+public class ShiftingBottleneckSolverTests {
+
+    /** Optimal value of a one-machine problem, by enumeration of the permutations of the jobs. */
+    private static int bruteForceOneMachine(int[] release, int[] duration, int[] tail, int[] permutation, int k) {
+        if (k == permutation.length) {
+            int time = 0, value = 0;
+            for (int job : permutation) {
+                time = Math.max(time, release[job]) + duration[job];
+                value = Math.max(value, time + tail[job]);
+            }
+            return value;
+        }
+        int best = Integer.MAX_VALUE;
+        for (int i = k; i < permutation.length; i++) {
+            int tmp = permutation[k]; permutation[k] = permutation[i]; permutation[i] = tmp;
+            best = Math.min(best, bruteForceOneMachine(release, duration, tail, permutation, k + 1));
+            tmp = permutation[k]; permutation[k] = permutation[i]; permutation[i] = tmp;
+        }
+        return best;
+    }
+
+    @Test
+    public void testShiftingBottleneck() throws IOException {
+        // Carlier's branch and bound solves small one-machine problems exactly
+        Random random = new Random(1);
+        ShiftingBottleneckSolver.OneMachine oneMachine = new ShiftingBottleneckSolver.OneMachine(6);
+        int[] sequence = new int[6];
+        for (int i = 0; i < 200; i++) {
+            int[] permutation = new int[6];
+            for (int job = 0; job < 6; job++) {
+                oneMachine.release[job] = random.nextInt(30);
+                oneMachine.duration[job] = random.nextInt(10);
+                oneMachine.tail[job] = random.nextInt(30);
+                oneMachine.rank[job] = job;
+                permutation[job] = job;
+            }
+            int value = oneMachine.solve(Integer.MAX_VALUE, sequence);
+            Assert.assertEquals(bruteForceOneMachine(oneMachine.release, oneMachine.duration, oneMachine.tail, permutation, 0), value);
+            Assert.assertEquals(value, bruteForceOneMachine(oneMachine.release, oneMachine.duration, oneMachine.tail, sequence, sequence.length));
+        }
+
+        for (String instanceName : new String[]{"aaa1", "ft06", "ft10", "la21", "orb07", "ta01"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances", instanceName));
+            Optional<Schedule> schedule = new ShiftingBottleneckSolver().solve(instance, RunControl.unlimited());
+            Assert.assertTrue(schedule.isPresent() && schedule.get().isValid());
+            // sequencing with Schrage's heuristic only, as when the deadline is met
+            Optional<Schedule> fast = new ShiftingBottleneckSolver().solve(instance, RunControl.withDeadline(0));
+            Assert.assertTrue(fast.isPresent() && fast.get().isValid());
+        }
+    }
+}
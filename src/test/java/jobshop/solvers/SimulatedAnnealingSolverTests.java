@@ -0,0 +1,35 @@
+package jobshop.solvers;
+
+
+import jobshop.Instance;
+import jobshop.encodings.Schedule;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+public class SimulatedAnnealingSolverTests {
+
+    @Test
+    public void testSimulatedAnnealing() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Solver base = new GreedySolver(GreedySolver.Priority.EST_LRPT);
+        int initial = base.solve(instance, RunControl.unlimited()).get().makespan();
+
+        // with a fixed seed and iteration budget, the search is reproducible and never worse than its start
+        RunControl control = RunControl.unlimited().withMaxIterations(20000);
+        Optional<Schedule> result = new SimulatedAnnealingSolver(base, 3).solve(instance, control);
+        Assert.assertTrue(result.isPresent() && result.get().isValid());
+        Assert.assertTrue(result.get().makespan() < initial);
+        Assert.assertEquals(RunControl.StopReason.ITERATIONS, control.stopReason());
+        Optional<Schedule> again = new SimulatedAnnealingSolver(base, 3).solve(instance, RunControl.unlimited().withMaxIterations(20000));
+        Assert.assertEquals(result.get().makespan(), again.get().makespan());
+
+        // a cold start only accepts improving and equivalent moves
+        Optional<Schedule> cold = new SimulatedAnnealingSolver(base, 1e-9, 0.5, 10, 3)
+                .solve(instance, RunControl.unlimited().withMaxIterations(5000));
+        Assert.assertTrue(cold.get().isValid() && cold.get().makespan() <= initial);
+    }
+}
@@ -2,6 +2,7 @@ package jobshop.solvers;
 
 
 import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
 import jobshop.encodings.Schedule;
 import jobshop.solvers.neighborhood.Nowicki;
 import org.junit.Assert;
@@ -74,6 +75,28 @@ public class TabooSolverSolverTests {
         Assert.assertTrue(result.isPresent(new Nowicki.Swap(1,2,1)));
     }
 
+    @Test
+    public void memoryExpiry() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        Optional<Schedule> initial = new GreedySolver(GreedySolver.Priority.EST_SPT).solve(instance, 100);
+        ResourceOrder order = new ResourceOrder(initial.get());
+        TabooMemory memory = new TabooMemory(instance);
+
+        Nowicki.Swap swap = new Nowicki.Swap(2, 1, 2);
+        Assert.assertFalse(memory.isTaboo(order, swap));
+        swap.applyOn(order);
+        memory.addTaboo(order, swap, 3);
+
+        // reverting the swap is taboo for the next 2 iterations, whatever the positions of the jobs
+        Assert.assertTrue(memory.isTaboo(order, swap));
+        Assert.assertFalse(memory.isTaboo(order, new Nowicki.Swap(2, 0, 1)));
+        memory.nextIteration();
+        memory.nextIteration();
+        Assert.assertTrue(memory.isTaboo(order, swap));
+        memory.nextIteration();
+        Assert.assertFalse(memory.isTaboo(order, swap));
+    }
+
     @Test
     public void testTabooSolver() throws IOException {
         Instance instance = Instance.fromFile(Paths.get("instances/aaa3"));